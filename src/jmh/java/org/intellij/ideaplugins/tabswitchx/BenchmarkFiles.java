@@ -0,0 +1,70 @@
+package org.intellij.ideaplugins.tabswitchx;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.jetbrains.annotations.NotNull;
+
+import com.intellij.openapi.vfs.VirtualFile;
+import com.intellij.testFramework.LightVirtualFile;
+
+/**
+ * Stand-in files for the benchmarks. Names and directories look like those of a Gradle/Maven multi module project,
+ * and are the same for every run.
+ */
+public final class BenchmarkFiles {
+
+  private static final String[] NAMES = {
+    "Utils", "index", "FileFetcher", "ListComponentFactory", "TabSwitchProjectComponent", "README", "build",
+    "ChangedFilesInVcsFileFetcher", "OpenTabFilesFileFetcher", "MruFileIndex", "settings", "package"
+  };
+  private static final String[] EXTENSIONS = {".java", ".ts", ".kt", ".xml", ".gradle", ".md", ".json"};
+  private static final String[] DIRECTORIES = {"core", "api", "impl", "platform", "ui", "vcs", "util", "model"};
+
+  private BenchmarkFiles() {
+  }
+
+  /**
+   * @return {@code count} distinct files with a parent directory {@code depth} levels deep.
+   */
+  public static List<VirtualFile> create(int count, int depth) {
+    Random random = new Random(count * 31L + depth);
+    List<VirtualFile> files = new ArrayList<>(count);
+    for (int i = 0; i < count; i++) {
+      StringBuilder parent = new StringBuilder("/home/user/projects/monorepo");
+      for (int d = 0; d < depth; d++) {
+        parent.append('/').append(DIRECTORIES[random.nextInt(DIRECTORIES.length)]).append(i % (d + 2));
+      }
+      String name = NAMES[random.nextInt(NAMES.length)] + i + EXTENSIONS[random.nextInt(EXTENSIONS.length)];
+      files.add(new FileWithParent(name, new FileWithParent(parent.toString(), null)));
+    }
+    return files;
+  }
+
+  public static List<VirtualFile> create(int count) {
+    return create(count, 6);
+  }
+
+  private static final class FileWithParent extends LightVirtualFile {
+    private final VirtualFile parent;
+    private final String presentableUrl;
+
+    private FileWithParent(String name, VirtualFile parent) {
+      super(name);
+      this.parent = parent;
+      this.presentableUrl = parent != null ? parent.getPresentableUrl() + "/" + name : name;
+    }
+
+    @Override
+    public VirtualFile getParent() {
+      return parent;
+    }
+
+    @NotNull
+    @Override
+    public String getPresentableUrl() {
+      return presentableUrl;
+    }
+  }
+}
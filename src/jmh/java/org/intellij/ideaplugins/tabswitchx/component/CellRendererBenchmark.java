@@ -0,0 +1,74 @@
+package org.intellij.ideaplugins.tabswitchx.component;
+
+import java.awt.Color;
+import java.awt.Component;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import javax.swing.JList;
+import javax.swing.ListCellRenderer;
+
+import org.intellij.ideaplugins.tabswitchx.BenchmarkFiles;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import com.intellij.openapi.vfs.VirtualFile;
+import com.intellij.ui.components.JBList;
+import com.intellij.util.ui.EmptyIcon;
+
+/**
+ * Paints every row of a switcher list once, through the cell renderer of {@link ListComponentFactory}. The render
+ * snapshots are stubbed, since resolving icons and file statuses needs a running IDE.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class CellRendererBenchmark {
+
+  @Param({"10", "100", "1000", "10000"})
+  public int size;
+
+  private JList<VirtualFile> list;
+  private FileListModel model;
+  private ListCellRenderer<Object> renderer;
+  private BufferedImage image;
+  private Graphics2D graphics;
+
+  @Setup
+  @SuppressWarnings("unchecked")
+  public void setUp() {
+    List<VirtualFile> files = BenchmarkFiles.create(size);
+    model = new FileListModel(file -> new FileRenderSnapshot(EmptyIcon.ICON_16, false, file.getName(), Color.BLACK));
+    model.setFiles(files);
+    list = new JBList<>(model);
+    renderer = new ListComponentFactory.ListCellRendererWithColorFactory().create(null);
+    image = new BufferedImage(400, 24, BufferedImage.TYPE_INT_ARGB);
+    graphics = image.createGraphics();
+  }
+
+  @TearDown
+  public void tearDown() {
+    graphics.dispose();
+  }
+
+  @Benchmark
+  public int paintAllRows() {
+    int width = 0;
+    for (int i = 0; i < size; i++) {
+      Component component = renderer.getListCellRendererComponent(list, model.getElementAt(i), i, i == 0, false);
+      component.setSize(400, 24);
+      component.paint(graphics);
+      width += component.getWidth();
+    }
+    return width;
+  }
+}
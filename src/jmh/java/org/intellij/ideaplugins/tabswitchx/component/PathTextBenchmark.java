@@ -0,0 +1,56 @@
+package org.intellij.ideaplugins.tabswitchx.component;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import javax.swing.JLabel;
+
+import org.intellij.ideaplugins.tabswitchx.BenchmarkFiles;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import com.intellij.openapi.vfs.VirtualFile;
+
+/**
+ * Fits the parent path of the selected file into the footer path label, cycling through {@code size} files like
+ * holding Tab does.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class PathTextBenchmark {
+
+  @Param({"10", "100", "1000", "10000"})
+  public int size;
+
+  @Param({"4", "12"})
+  public int depth;
+
+  private VirtualFile[] parents;
+  private JLabel pathLabel;
+  private ListComponentFactory.ListSelectionListenerWithPathUpdaterFactory factory;
+  private int next;
+
+  @Setup
+  public void setUp() {
+    List<VirtualFile> files = BenchmarkFiles.create(size, depth);
+    parents = new VirtualFile[files.size()];
+    for (int i = 0; i < parents.length; i++) {
+      parents[i] = files.get(i).getParent();
+    }
+    pathLabel = new PathLabelComponentFactory().create();
+    pathLabel.setSize(250, 16);
+    factory = new ListComponentFactory.ListSelectionListenerWithPathUpdaterFactory();
+  }
+
+  @Benchmark
+  public String pathTextForSelectedFile() {
+    return factory.getPathTextForSelectedFile(pathLabel, parents[next++ % parents.length]);
+  }
+}
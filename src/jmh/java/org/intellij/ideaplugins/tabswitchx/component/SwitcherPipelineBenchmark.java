@@ -0,0 +1,187 @@
+package org.intellij.ideaplugins.tabswitchx.component;
+
+import java.awt.Color;
+import java.awt.Component;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import javax.swing.JList;
+import javax.swing.ListCellRenderer;
+
+import org.intellij.ideaplugins.tabswitchx.BenchmarkFiles;
+import org.intellij.ideaplugins.tabswitchx.filter.FileNameFilterIndex;
+import org.intellij.ideaplugins.tabswitchx.mru.MruList;
+import org.intellij.ideaplugins.tabswitchx.vcs.SortedFileSet;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import com.intellij.openapi.vfs.VirtualFile;
+import com.intellij.ui.components.JBList;
+import com.intellij.util.ui.EmptyIcon;
+
+/**
+ * Stress run of everything a switcher invocation does on the EDT, for thousands of tabs and a change list just as
+ * large: fetching the MRU or VCS snapshot, handing it to the list model, sizing the list by its prototype cell,
+ * painting the visible rows, and moving the selection under key auto-repeat or narrowing it by a typed query.
+ * <p>
+ * The tabs and the change list are stubbed as in the other benchmarks, to compare the data structures between
+ * versions. The same switches replayed through the actions and the component, with bounds that fail the build, are in
+ * {@code SwitcherStressTest}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class SwitcherPipelineBenchmark {
+
+  private static final int VISIBLE_ROWS = 30;
+  private static final int ROW_WIDTH = 400;
+  private static final int ROW_HEIGHT = 24;
+  // Tab presses per auto-repeat burst, about one second of repeat at the usual rate
+  private static final int BURST = 30;
+
+  @Param({"100", "1000", "5000"})
+  public int size;
+
+  private VirtualFile[] tabs;
+  private MruList<VirtualFile> mruList;
+  private SortedFileSet changedFiles;
+  private Set<VirtualFile> changes;
+  private Set<VirtualFile> changesWithoutOne;
+  private FileListModel model;
+  private JList<VirtualFile> list;
+  private ListCellRenderer<Object> renderer;
+  private Graphics2D graphics;
+  private int[] filterResult;
+  private int next;
+  private boolean toggle;
+
+  @Setup
+  @SuppressWarnings("unchecked")
+  public void setUp() {
+    List<VirtualFile> files = BenchmarkFiles.create(size);
+    tabs = files.toArray(VirtualFile.EMPTY_ARRAY);
+    mruList = new MruList<>();
+    for (VirtualFile file : files) {
+      mruList.touch(file);
+    }
+    changes = new HashSet<>(files);
+    changesWithoutOne = new HashSet<>(files);
+    changesWithoutOne.remove(files.get(size / 2));
+    changedFiles = new SortedFileSet();
+    changedFiles.update(changes);
+    model = new FileListModel(file -> new FileRenderSnapshot(EmptyIcon.ICON_16, false, file.getName(), Color.BLACK));
+    list = new JBList<>(model);
+    renderer = new ListComponentFactory.ListCellRendererWithColorFactory().create(null);
+    graphics = new BufferedImage(ROW_WIDTH, ROW_HEIGHT, BufferedImage.TYPE_INT_ARGB).createGraphics();
+    filterResult = new int[size];
+  }
+
+  @TearDown
+  public void tearDown() {
+    graphics.dispose();
+  }
+
+  /**
+   * NextTabAction/PrevTabAction: a tab was selected since the last switch, then the popup opens on the MRU snapshot.
+   */
+  @Benchmark
+  public int openTabsPopup() {
+    mruList.touch(tabs[next++ % tabs.length]);
+    return showPopup(mruList.toList(size, VirtualFile::isValid), 1);
+  }
+
+  /**
+   * NextVcsChangeAction: the change list lost or regained a file since the last switch.
+   */
+  @Benchmark
+  public int vcsChangesPopup() {
+    toggle = !toggle;
+    changedFiles.update(toggle ? changesWithoutOne : changes);
+    return showPopup(changedFiles.toList(), 0);
+  }
+
+  /**
+   * Tab held down in the open popup: every repeat moves the selection one row, wrapping at the end, and repaints the
+   * rows it left and entered. Reported per key press, the popup is opened before each burst and not measured.
+   */
+  @Benchmark
+  @OperationsPerInvocation(BURST)
+  public int keyRepeatBurst(OpenPopup popup) {
+    int painted = 0;
+    for (int i = 0; i < BURST; i++) {
+      int selected = list.getSelectedIndex();
+      int row = (selected + 1) % model.getSize();
+      list.setSelectedIndex(row);
+      painted += paintRow(selected) + paintRow(row);
+    }
+    return painted;
+  }
+
+  /**
+   * Three letters typed into the open popup, each narrowing the list and selecting the first match.
+   */
+  @Benchmark
+  public int typeToFilter() {
+    showPopup(mruList.toList(size, VirtualFile::isValid), 1);
+    FileNameFilterIndex index = new FileNameFilterIndex(model.getFiles());
+    String query = "utl";
+    int painted = 0;
+    for (int length = 1; length <= query.length(); length++) {
+      model.setFilter(filterResult, index.filter(query.subSequence(0, length), filterResult));
+      if (model.getSize() > 0) {
+        list.setSelectedIndex(0);
+      }
+      painted += paintVisibleRows();
+    }
+    return painted;
+  }
+
+  private int showPopup(List<VirtualFile> files, int selection) {
+    model.setFiles(files);
+    list.setPrototypeCellValue(model.getPrototypeFile());
+    list.setVisibleRowCount(Math.min(files.size(), VISIBLE_ROWS));
+    int height = list.getPreferredScrollableViewportSize().height;
+    list.setSelectedIndex(Math.min(selection, files.size() - 1));
+    return height + paintVisibleRows();
+  }
+
+  private int paintVisibleRows() {
+    int width = 0;
+    for (int row = 0; row < Math.min(model.getSize(), VISIBLE_ROWS); row++) {
+      width += paintRow(row);
+    }
+    return width;
+  }
+
+  private int paintRow(int row) {
+    if (row < 0) return 0;
+    Component component = renderer.getListCellRendererComponent(list, model.getElementAt(row), row, list.isSelectedIndex(row), false);
+    component.setSize(ROW_WIDTH, ROW_HEIGHT);
+    component.paint(graphics);
+    return component.getWidth();
+  }
+
+  /**
+   * Opens the popup on the MRU snapshot before every {@link #keyRepeatBurst}, outside of the measured time.
+   */
+  @State(Scope.Thread)
+  public static class OpenPopup {
+    @Setup(Level.Invocation)
+    public void open(SwitcherPipelineBenchmark benchmark) {
+      benchmark.showPopup(benchmark.mruList.toList(benchmark.size, VirtualFile::isValid), 1);
+    }
+  }
+}
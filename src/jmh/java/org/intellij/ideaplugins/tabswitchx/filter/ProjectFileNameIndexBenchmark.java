@@ -0,0 +1,85 @@
+package org.intellij.ideaplugins.tabswitchx.filter;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.intellij.ideaplugins.tabswitchx.BenchmarkFiles;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import com.intellij.openapi.vfs.VirtualFile;
+
+/**
+ * Lookups in the name table of the {@link ProjectFileNameIndex} for project sized file counts, collecting as many
+ * candidates as the switcher asks for, and the background build of the table.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ProjectFileNameIndexBenchmark {
+
+  // 20 results with 4 candidates each, as the switcher asks for
+  private static final int CANDIDATES = 80;
+
+  @Param({"10000", "200000"})
+  public int size;
+
+  private int[] ids;
+  private String[] names;
+  private ProjectFileNameIndex.Snapshot snapshot;
+  private int found;
+
+  @Setup
+  public void setUp() {
+    List<VirtualFile> files = BenchmarkFiles.create(size, 0);
+    ids = new int[size];
+    names = new String[size];
+    for (int i = 0; i < size; i++) {
+      ids[i] = i;
+      names[i] = ProjectFileNameIndex.toLowerCase(files.get(i).getNameSequence());
+    }
+    snapshot = ProjectFileNameIndex.Snapshot.create(ids, names, size, 0);
+  }
+
+  /**
+   * The first typed key, with a prefix range spanning a twelfth of the names.
+   */
+  @Benchmark
+  public int prefix() {
+    return lookup("f");
+  }
+
+  /**
+   * A common infix, with long postings for all of its trigrams.
+   */
+  @Benchmark
+  public int infix() {
+    return lookup("fetcher");
+  }
+
+  /**
+   * An infix that matches few names, so no lookup stops early.
+   */
+  @Benchmark
+  public int rareInfix() {
+    return lookup("s12345.");
+  }
+
+  @Benchmark
+  public ProjectFileNameIndex.Snapshot build() {
+    return ProjectFileNameIndex.Snapshot.create(ids, names, size, 0);
+  }
+
+  private int lookup(String query) {
+    found = 0;
+    snapshot.findPrefix(query, id -> ++found < CANDIDATES);
+    snapshot.findInfix(query, id -> ++found < 2 * CANDIDATES);
+    return found;
+  }
+}
@@ -0,0 +1,56 @@
+package org.intellij.ideaplugins.tabswitchx.frecency;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.intellij.ideaplugins.tabswitchx.BenchmarkFiles;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import com.intellij.openapi.vfs.VirtualFile;
+
+/**
+ * Re-ranking of the {@link FrecencyScores} behind the {@link FrecencyIndex}: decaying every score and sorting the
+ * open files by it. Only the ranked list is allocated.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class FrecencyRankBenchmark {
+
+  @Param({"10", "100", "1000", "10000"})
+  public int size;
+
+  private FrecencyScores<VirtualFile> scores;
+  private long now;
+
+  @Setup
+  public void setUp() {
+    Random random = new Random(42);
+    now = System.currentTimeMillis();
+    scores = new FrecencyScores<>(VirtualFile::isValid);
+    for (VirtualFile file : BenchmarkFiles.create(size)) {
+      // a quarter of the files was never visited
+      if (random.nextInt(4) == 0) {
+        scores.setOpen(file, true, now);
+        continue;
+      }
+      long visitedAt = now - random.nextInt(8 * 60 * 60 * 1000);
+      for (int visits = 1 + random.nextInt(50); visits > 0; visits--) {
+        scores.visit(file, visitedAt);
+      }
+    }
+  }
+
+  @Benchmark
+  public List<VirtualFile> rank() {
+    return scores.rank(size, now);
+  }
+}
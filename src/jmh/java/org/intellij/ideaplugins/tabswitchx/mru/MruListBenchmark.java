@@ -0,0 +1,72 @@
+package org.intellij.ideaplugins.tabswitchx.mru;
+
+import java.util.HashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.intellij.ideaplugins.tabswitchx.BenchmarkFiles;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import com.intellij.openapi.vfs.VirtualFile;
+import com.intellij.util.ArrayUtil;
+
+/**
+ * The open tabs switcher path: {@code OpenTabFilesFileFetcher} reads a snapshot of the {@link MruFileIndex}, which
+ * editor selection events keep in order through {@link MruList#touch(Object)}. {@link #legacyHistoryScan()} is the
+ * history scan the fetcher did before the index, kept as a baseline.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class MruListBenchmark {
+
+  @Param({"10", "100", "1000", "10000"})
+  public int size;
+
+  private VirtualFile[] history;
+  private Set<VirtualFile> openFiles;
+  private MruList<VirtualFile> mruList;
+  private int next;
+
+  @Setup
+  public void setUp() {
+    List<VirtualFile> files = BenchmarkFiles.create(size);
+    history = files.toArray(VirtualFile.EMPTY_ARRAY);
+    openFiles = new HashSet<>(files);
+    mruList = new MruList<>();
+    for (VirtualFile file : files) {
+      mruList.touch(file);
+    }
+  }
+
+  @Benchmark
+  public List<VirtualFile> snapshot() {
+    return mruList.toList(size, VirtualFile::isValid);
+  }
+
+  @Benchmark
+  public List<VirtualFile> selectAndSnapshot() {
+    mruList.touch(history[next++ % history.length]);
+    return mruList.toList(size, VirtualFile::isValid);
+  }
+
+  @Benchmark
+  public List<VirtualFile> legacyHistoryScan() {
+    List<VirtualFile> result = new LinkedList<>();
+    for (VirtualFile file : ArrayUtil.reverseArray(history)) {
+      if (result.size() <= size && openFiles.contains(file) && !result.contains(file)) {
+        result.add(file);
+      }
+    }
+    return result;
+  }
+}
@@ -0,0 +1,75 @@
+package org.intellij.ideaplugins.tabswitchx.vcs;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.intellij.ideaplugins.tabswitchx.BenchmarkFiles;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import com.intellij.openapi.vfs.VirtualFile;
+
+/**
+ * The VCS switcher path: {@code ChangedFilesInVcsFileFetcher} reads the snapshot of the {@link VcsChangeIndex}, whose
+ * {@link SortedFileSet} is updated after every change list update. The stubbed change list is a plain set of files.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class SortedFileSetBenchmark {
+
+  @Param({"10", "100", "1000", "10000"})
+  public int size;
+
+  private List<VirtualFile> files;
+  private Set<VirtualFile> changes;
+  private Set<VirtualFile> changesWithoutOne;
+  private SortedFileSet sortedFileSet;
+  private boolean toggle;
+
+  @Setup
+  public void setUp() {
+    files = BenchmarkFiles.create(size);
+    changes = new HashSet<>(files);
+    changesWithoutOne = new HashSet<>(files);
+    changesWithoutOne.remove(files.get(size / 2));
+    sortedFileSet = new SortedFileSet();
+    sortedFileSet.update(changes);
+  }
+
+  @Benchmark
+  public List<VirtualFile> fullUpdate() {
+    SortedFileSet set = new SortedFileSet();
+    set.update(changes);
+    return set.toList();
+  }
+
+  @Benchmark
+  public List<VirtualFile> incrementalUpdate() {
+    toggle = !toggle;
+    sortedFileSet.update(toggle ? changesWithoutOne : changes);
+    return sortedFileSet.toList();
+  }
+
+  @Benchmark
+  public List<VirtualFile> unchangedUpdate() {
+    sortedFileSet.update(changes);
+    return sortedFileSet.toList();
+  }
+
+  @Benchmark
+  public List<VirtualFile> legacySort() {
+    List<VirtualFile> result = new ArrayList<>(files);
+    result.sort((vf1, vf2) -> vf1.getName().compareToIgnoreCase(vf2.getName()));
+    return result;
+  }
+}
@@ -0,0 +1,119 @@
+package org.intellij.ideaplugins.tabswitchx;
+
+import com.intellij.openapi.actionSystem.KeyboardShortcut;
+import com.intellij.openapi.actionSystem.Shortcut;
+import com.intellij.openapi.keymap.KeymapManager;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.wm.WindowManager;
+import org.intellij.ideaplugins.tabswitchx.filefetcher.OpenTabFilesFileFetcher;
+
+import javax.swing.*;
+import java.awt.*;
+import java.awt.event.InputEvent;
+import java.awt.event.KeyEvent;
+
+/**
+ * Watches for the modifier of the tab switch actions going down in the frame of a project, and has the switcher list
+ * prepared while the user reaches for Tab, which usually follows within a few dozen milliseconds. The files and the
+ * snapshots of the visible rows are prepared right away, from the cached MRU snapshot. Only the layout of the list
+ * waits until the modifier was held alone for {@link #LAYOUT_DELAY_MILLIS}, so ordinary shortcuts with the same
+ * modifier, like Ctrl+S, do not pay for it. Releasing the modifier without switching throws the prepared list away
+ * again.
+ * <p>
+ * Never consumes an event.
+ */
+class SwitchPrefetcher implements KeyEventDispatcher {
+
+  private static final String[] ACTION_IDS = {
+    "org.intellij.ideaplugins.tabswitchx.action.NextTabAction",
+    "org.intellij.ideaplugins.tabswitchx.action.PrevTabAction"
+  };
+
+  private static final int LAYOUT_DELAY_MILLIS = 150;
+
+  private final Project project;
+  private final TabSwitchProjectComponent component;
+  private final Timer layoutTimer;
+  // key code of the held modifier of the actions, 0 if none
+  private int heldModifier;
+
+  SwitchPrefetcher(Project project, TabSwitchProjectComponent component) {
+    this.project = project;
+    this.component = component;
+    this.layoutTimer = new Timer(LAYOUT_DELAY_MILLIS, event -> {
+      if(heldModifier != 0 && !project.isDisposed()) {
+        component.prepareLayout();
+      }
+    });
+    layoutTimer.setRepeats(false);
+  }
+
+  @Override
+  public boolean dispatchKeyEvent(KeyEvent event) {
+    if(event.getID() == KeyEvent.KEY_PRESSED) {
+      if(event.getKeyCode() == heldModifier) {
+        // auto-repeat of the held modifier arrives as further presses
+        return false;
+      }
+      if(heldModifier == 0 && isActionModifier(event.getKeyCode()) && isInProjectFrame(event)) {
+        heldModifier = event.getKeyCode();
+        component.prepare(new OpenTabFilesFileFetcher().getFiles(project));
+        layoutTimer.restart();
+      } else {
+        // any other key is a shortcut on its own, or the switch itself, which lays out the list anyway
+        layoutTimer.stop();
+      }
+    } else if(event.getID() == KeyEvent.KEY_RELEASED && event.getKeyCode() == heldModifier) {
+      heldModifier = 0;
+      layoutTimer.stop();
+      component.discardPrepared();
+    }
+    return false;
+  }
+
+  void stop() {
+    heldModifier = 0;
+    layoutTimer.stop();
+  }
+
+  /**
+   * Reads the shortcuts from the active keymap every time, so rebinding the actions takes effect right away.
+   */
+  private static boolean isActionModifier(int keyCode) {
+    int mask = toModifierMask(keyCode);
+    if(mask == 0) {
+      return false;
+    }
+    for(String actionId : ACTION_IDS) {
+      for(Shortcut shortcut : KeymapManager.getInstance().getActiveKeymap().getShortcuts(actionId)) {
+        if(shortcut instanceof KeyboardShortcut
+           && (((KeyboardShortcut) shortcut).getFirstKeyStroke().getModifiers() & mask) != 0) {
+          return true;
+        }
+      }
+    }
+    return false;
+  }
+
+  private static int toModifierMask(int keyCode) {
+    switch(keyCode) {
+      case KeyEvent.VK_CONTROL:
+        return InputEvent.CTRL_DOWN_MASK | InputEvent.CTRL_MASK;
+      case KeyEvent.VK_ALT:
+        return InputEvent.ALT_DOWN_MASK | InputEvent.ALT_MASK;
+      case KeyEvent.VK_META:
+        return InputEvent.META_DOWN_MASK | InputEvent.META_MASK;
+      default:
+        return 0;
+    }
+  }
+
+  private boolean isInProjectFrame(KeyEvent event) {
+    Component source = event.getComponent();
+    if(source == null) {
+      return false;
+    }
+    Window window = source instanceof Window ? (Window) source : SwingUtilities.getWindowAncestor(source);
+    return window != null && window == WindowManager.getInstance().getFrame(project);
+  }
+}
@@ -1 +1 @@
-/* * Copyright (c) 2021 by Fuhrer Engineering AG, CH-2504 Biel/Bienne, Switzerland & Bas Leijdekkers * * Licensed under the Apache License, Version 2.0 (the "License"); * you may not use this file except in compliance with the License. * You may obtain a copy of the License at * * http://www.apache.org/licenses/LICENSE-2.0 * * Unless required by applicable law or agreed to in writing, software * distributed under the License is distributed on an "AS IS" BASIS, * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. * See the License for the specific language governing permissions and * limitations under the License. */package org.intellij.ideaplugins.tabswitchx;import com.intellij.execution.filters.TextConsoleBuilderFactory;import com.intellij.execution.ui.ConsoleView;import com.intellij.notification.NotificationGroupManager;import com.intellij.notification.NotificationType;import com.intellij.openapi.components.AbstractProjectComponent;import com.intellij.openapi.components.ComponentManager;import com.intellij.openapi.fileEditor.FileEditorManager;import com.intellij.openapi.project.Project;import com.intellij.openapi.ui.popup.JBPopup;import com.intellij.openapi.ui.popup.PopupChooserBuilder;import com.intellij.openapi.vfs.VirtualFile;import com.intellij.openapi.wm.ToolWindow;import com.intellij.openapi.wm.ToolWindowManager;import com.intellij.openapi.wm.impl.IdeFrameImpl;import com.intellij.ui.content.Content;import org.intellij.ideaplugins.tabswitchx.component.Components;import org.jetbrains.annotations.Nullable;import javax.swing.*;import java.awt.*;import java.awt.event.KeyEvent;import java.awt.event.MouseListener;import java.awt.event.MouseWheelListener;import java.util.BitSet;import java.util.List;public class TabSwitchProjectComponent extends AbstractProjectComponent implements KeyEventDispatcher {  private final BitSet modifiers = new BitSet();  private final JList list;  private final PopupChooserBuilder builder;  private Project thisProject;  private JBPopup popup;  private int upTrigger;  private int dwTrigger;  private int windowHeight;  // public Dimension maxSize = new Dimension(1000, 1000);  // public Dimension minSize = new Dimension(150, 200);  private boolean isShifted = false;  public TabSwitchProjectComponent(Project project) {    super(project);    thisProject = project;    JLabel pathLabel = Components.newPathLabel();    this.list = Components.newList(project, pathLabel);    // this.list.setMaximumSize(maxSize);    this.builder = new PopupChooserBuilder(list);    this.builder      .setTitle("Open files")      .setCancelOnWindowDeactivation(false)      .setCancelOnClickOutside(true)      .setMovable(true)      .setUseDimensionServiceForXYLocation(true)      // .setMinSize(minSize)      .setAutoselectOnMouseMove(false)      .setSouthComponent(Components.newListFooter(pathLabel))      .setItemChoosenCallback(new Runnable() {        @Override        public void run() {          closeAndOpenSelectedFile();        }      });  }  public static TabSwitchProjectComponent getHandler(Project project) {    return project.getComponent(TabSwitchProjectComponent.class);  }  public Dimension recalculateSize(final int height) {    Dimension preferredSize = null;    if(popup != null) {      Dimension currentSize = popup.getSize();      if(currentSize != null) {        System.out.println("WINDOW HEIGHT: " + height + " ; SIZE: (" + currentSize.getWidth() + ", " + currentSize.getHeight() + ")");        final Project prj = this.thisProject;        // notifyInfo(prj, "WINDOW SIZE: (" + currentSize.getWidth() + ", " + currentSize.getHeight() + ")");        // int cellHeight = list.getFixedCellHeight();        Rectangle cellBounds = list.getCellBounds(0, 0);        double cHeight = cellBounds.getHeight();        int cellHeight = (int) cHeight;        // list.getScrollableTracksViewportHeight()        int cellCount = list.getModel().getSize();        int prefHeight = cellHeight * cellCount;		System.out.println("CELL HEIGHT: " + cellHeight + "\tTOTAL HEIGHT: " + prefHeight);        // int cellWidth = list.getWidth();        // int cellWidth = (int) currentSize.getWidth();        int cellWidth = list.getWidth();		int newWidth = cellWidth; // + 32 + 6;		  int goodSize = prefHeight + 53;		  int newHeight = currentSize.getHeight() < goodSize ? goodSize : prefHeight; //Integer.parseInt(currentSize.getHeight() + "");        // preferredSize = new Dimension(newWidth, prefHeight);        preferredSize = new Dimension(newWidth, newHeight);        System.out.println("PREFERRED SIZE: " + preferredSize);        JComponent contents = popup.getContent();		var j = contents.getComponent(0);        // System.out.println("COMPONENT: " + contents);        int visibleRows = list.getVisibleRowCount();        System.out.println("VISIBLE ROW COUNT: " + visibleRows);        int wantVisibleRows = visibleRows > 30 ? 30 : visibleRows < 1 ? 1 : cellCount;        list.setVisibleRowCount(wantVisibleRows);        System.out.println("WANTED ROWS COUNT: " + wantVisibleRows);        contents.setPreferredSize(preferredSize);        list.setPreferredSize(preferredSize);		list.setFixedCellWidth(-1);        popup.pack(true, true);      }    }    return preferredSize;  }  public void recalculatePosition() {    if(popup != null) {      JComponent component = popup.getContent();      Container parent = component != null ? component.getParent() : null;      Container grandparent = parent != null ? parent.getParent() : null;      Container grandparent2 = grandparent != null ? grandparent.getParent() : null;      Container popupDialog = grandparent2 != null ? grandparent2.getParent() : null;      IdeFrameImpl ideWindow = popupDialog != null ? (IdeFrameImpl) popupDialog.getParent() : null;      final String strComponent1 = component != null ? component.getClass().toString() : null;      final String strComponent2 = parent != null ? parent.getClass().toString() : null;      final String strComponent3 = grandparent != null ? grandparent.getClass().toString() : null;      final String strComponent4 = grandparent2 != null ? grandparent2.getClass().toString() : null;      final String strComponent5 = popupDialog != null ? popupDialog.getClass().toString() : null;      final String strComponent6 = ideWindow != null ? ideWindow.getClass().toString() : null;      System.out.println("JCOMPONENT IS:" + strComponent1 + "\n*** PARENT IS ***: " + strComponent2 + "\n*** GP IS ***: " + strComponent3 + "\nGP2 IS:" + strComponent4 + "\n*** DIALOG IS ***: " + strComponent5 + "\n*** IDEWindow IS ***: " + strComponent6);      if(ideWindow != null) {        Point winPoint = ideWindow.getLocation();        final int winX = winPoint != null ? winPoint.x : -1;        final int winY = winPoint != null ? winPoint.y : -1;        Dimension parentDimension = ideWindow.getSize();        Dimension dialogDimension = popupDialog.getSize();        final int componentX = (int) (winPoint.getX() + (parentDimension.getWidth() - dialogDimension.getWidth()) / 2);        // final int componentY = (int) (winPoint.getY() + (parentDimension.getHeight() - dialogDimension.getHeight()) / 2);        final int componentY = (int) (winPoint.getY() + 100);        System.out.println("\nWINPOINT: (" + winX + ", " + winY + ")\nRECALCULATED POSITION: (" + componentX + ", " + componentY + ")");        popup.setLocation(new Point(componentX, componentY));        popup.pack(false, true);      }    }  }  @Override  public boolean dispatchKeyEvent(KeyEvent event) {    System.out.println("dispatchKeyEvent: Key params: " + event.paramString());    // this.windowHeight =    if(popup != null && popup.isDisposed()) {      KeyboardFocusManager.getCurrentKeyboardFocusManager().removeKeyEventDispatcher(this);      return false;    } else if((event.getID() == KeyEvent.KEY_RELEASED)) {      int keyCode = event.getKeyCode();      if(keyCode == KeyEvent.VK_SHIFT) {        this.isShifted = false;      }      if(modifiers.get(keyCode)) {        if(keyCode == KeyEvent.VK_ESCAPE) {          close();        } else {          closeAndOpenSelectedFile();        }      }    } else if(event.getID() == KeyEvent.KEY_PRESSED) {      int keyCode = event.getKeyCode();      switch(keyCode) {        case KeyEvent.VK_UP:          moveUp();          break;        case KeyEvent.VK_DOWN:          moveDown();          break;        case KeyEvent.VK_TAB:          if(this.isShifted) {            moveUp();          } else {            moveDown();          }          break;        case KeyEvent.VK_ENTER:          closeAndOpenSelectedFile();          break;        case KeyEvent.VK_SHIFT:          this.isShifted = true;        case KeyEvent.VK_CONTROL:        case KeyEvent.VK_ALT:        case KeyEvent.VK_ALT_GRAPH:        case KeyEvent.VK_META:          break;        default:          moveOnTrigger(event);          break;      }    }    return true;  }  public void show(KeyEvent event, boolean moveUp, boolean moveOnShow, List<VirtualFile> files) {    setupTrigger(moveUp, event);    if(cannotShow(files)) {		return;	}    if(popup != null) {		popup.dispose();	}    prepareListWithFiles(files);    popup = builder.createPopup();    modifiers.set(KeyEvent.VK_CONTROL, event.isControlDown());    modifiers.set(KeyEvent.VK_META, event.isMetaDown());    modifiers.set(KeyEvent.VK_ALT, event.isAltDown());    modifiers.set(KeyEvent.VK_ALT_GRAPH, event.isAltGraphDown());    modifiers.set(KeyEvent.VK_SHIFT, event.isShiftDown());    KeyboardFocusManager.getCurrentKeyboardFocusManager().addKeyEventDispatcher(this);    popup.showCenteredInCurrentWindow(myProject);	popup.setUiVisible(false);    this.recalculateSize(this.windowHeight);    this.recalculatePosition();	popup.setUiVisible(true);    // ToolWindow toolWindow = ToolWindowManager.getInstance(project).getToolWindow(ID);    // ConsoleView consoleView = TextConsoleBuilderFactory.getInstance().createBuilder(project).getConsole();    // Content content = toolWindow.getContentManager().getFactory().createContent(consoleView.getComponent(), "A Console Foo Bar", true);    // toolWindow.getContentManager().addContent(content);    // popup.setLocation(new Point());    if(moveOnShow) {      move(0);    }  }  private void setupTrigger(boolean moveUp, KeyEvent event) {    if(moveUp) {      upTrigger = event.getKeyCode();    } else {      dwTrigger = event.getKeyCode();    }  }  private boolean cannotShow(List<VirtualFile> files) {    return files.isEmpty() || popup != null && popup.isVisible();  }  private void prepareListWithFiles(final List<VirtualFile> files) {    list.setModel(new AbstractListModel() {      @Override      public int getSize() {        return files.size();      }      @Override      public Object getElementAt(int index) {        return files.get(index);      }    });    int fileCount = files.size();    fileCount = fileCount > 30 ? 30 : fileCount;    // list.setVisibleRowCount(files.size());    System.out.println("Setting visible file count to: " + fileCount);    list.setVisibleRowCount(fileCount);    // int cellWidth = list.getFixedCellWidth();    // int cellHeight = list.getFixedCellHeight();    // int cellWidth = list.getFixedCellWidth();    // int cellHeight = list.getFixedCellHeight();    // int cellHeight = 32;    // int listHeight = cellHeight * fileCount;    // Dimension listDimension = new Dimension(cellWidth + 10, listHeight);    // System.out.println(String.format("NEW LIST SIZE (cellWidth: %d, cellHeight: %d, files: %d): ", cellWidth, cellHeight, fileCount) + listDimension);    // list.setPreferredSize(listDimension);  }  private void moveOnTrigger(KeyEvent event) {    if(event.getKeyCode() != upTrigger && event.getKeyCode() != dwTrigger) {      // close();    } else {      move((event.getKeyCode() == dwTrigger && event.isShiftDown()) || (event.getKeyCode() == upTrigger && !event.isShiftDown()));    }  }  private void move(boolean up) {    move(up ? -1 : 1);  }  private void moveUp() {    move(-1);  }  private void moveDown() {    move(1);  }  private void move(int offset) {    int size = list.getModel().getSize();    list.setSelectedIndex((list.getSelectedIndex() + size + offset) % size);    list.ensureIndexIsVisible(list.getSelectedIndex());  }  public void closeAndOpenSelectedFile() {    close();    openSelectedFile();  }  private void close() {    disposePopup();    removeMouseListeners();    KeyboardFocusManager.getCurrentKeyboardFocusManager().removeKeyEventDispatcher(this);  }  private void openSelectedFile() {    VirtualFile file = (VirtualFile) list.getSelectedValue();    if(file != null && file.isValid()) {      FileEditorManager.getInstance(myProject).openFile(file, true, true);    }  }  private void disposePopup() {    if(popup != null) {      popup.cancel();      popup.dispose();      popup = null;    }  }  /**   * Workaround for MouseListener leak added in PopupChooserBuilder.createPopup().   */  private void removeMouseListeners() {    for(MouseListener listener : list.getMouseListeners()) {      removeMouseListener(listener);    }    for(MouseWheelListener listener : list.getMouseWheelListeners()) {      removeMouseWheelListener(listener);    }  }  private void removeMouseListener(MouseListener listener) {    if(listener.getClass().getName().startsWith("com.intellij.openapi.ui.popup.PopupChooserBuilder")) {      list.removeMouseListener(listener);    }  }  private void removeMouseWheelListener(MouseWheelListener listener) {    if(listener.getClass().getName().startsWith("com.intellij.openapi.ui.popup.PopupChooserBuilder")) {      list.removeMouseWheelListener(listener);    }  }  public static void notifyError(@Nullable Project project, String content) {    NotificationGroupManager.getInstance()      .getNotificationGroup("TabSwitchX Group")      .createNotification(content, NotificationType.ERROR)      .notify(project);  }  public static void notifyInfo(@Nullable Project project, String content) {    NotificationGroupManager.getInstance()      .getNotificationGroup("TabSwitchX Group")      .createNotification(content, NotificationType.INFORMATION)      .notify(project);  }}
\ No newline at end of file
+/* * Copyright (c) 2021 by Fuhrer Engineering AG, CH-2504 Biel/Bienne, Switzerland & Bas Leijdekkers * * Licensed under the Apache License, Version 2.0 (the "License"); * you may not use this file except in compliance with the License. * You may obtain a copy of the License at * * http://www.apache.org/licenses/LICENSE-2.0 * * Unless required by applicable law or agreed to in writing, software * distributed under the License is distributed on an "AS IS" BASIS, * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. * See the License for the specific language governing permissions and * limitations under the License. */package org.intellij.ideaplugins.tabswitchx;import com.intellij.execution.filters.TextConsoleBuilderFactory;import com.intellij.execution.ui.ConsoleView;import com.intellij.notification.NotificationGroupManager;import com.intellij.notification.NotificationType;import com.intellij.openapi.application.ApplicationManager;import com.intellij.openapi.application.ModalityState;import com.intellij.openapi.application.ReadAction;import com.intellij.openapi.components.AbstractProjectComponent;import com.intellij.openapi.components.ComponentManager;import com.intellij.openapi.fileEditor.FileEditorManager;import com.intellij.openapi.fileEditor.FileEditorManagerListener;import com.intellij.openapi.project.Project;import com.intellij.openapi.ui.popup.JBPopup;import com.intellij.openapi.ui.popup.PopupChooserBuilder;import com.intellij.openapi.vfs.VirtualFile;import com.intellij.openapi.wm.ToolWindow;import com.intellij.openapi.wm.ToolWindowManager;import com.intellij.openapi.wm.impl.IdeFrameImpl;import com.intellij.ui.content.Content;import com.intellij.util.concurrency.AppExecutorUtil;import org.intellij.ideaplugins.tabswitchx.component.Components;import org.intellij.ideaplugins.tabswitchx.component.FileIconCache;import org.intellij.ideaplugins.tabswitchx.component.FileListModel;import org.intellij.ideaplugins.tabswitchx.filefetcher.OpenTabFilesFileFetcher;import org.intellij.ideaplugins.tabswitchx.filter.FileNameFilterIndex;import org.intellij.ideaplugins.tabswitchx.filter.ProjectFileNameIndex;import org.intellij.ideaplugins.tabswitchx.metrics.SwitchMetrics;import org.intellij.ideaplugins.tabswitchx.metrics.SwitchWatchdog;import org.intellij.ideaplugins.tabswitchx.settings.TabSwitchXSettings;import org.jetbrains.annotations.NotNull;import org.jetbrains.annotations.Nullable;import org.jetbrains.concurrency.CancellablePromise;import javax.swing.*;import java.awt.*;import java.awt.event.KeyEvent;import java.awt.event.MouseListener;import java.awt.event.MouseWheelListener;import java.util.BitSet;import java.util.Collections;import java.util.HashSet;import java.util.List;import java.util.Set;import java.util.function.Consumer;public class TabSwitchProjectComponent extends AbstractProjectComponent implements KeyEventDispatcher {  private static final String TITLE = "Open files";  private static final int PROJECT_FILE_LIMIT = 20;  private final BitSet modifiers = new BitSet();  private final JList list;  private final FileListModel listModel;  private final PopupChooserBuilder builder;  private final JComponent previewPane;  private Project thisProject;  private JBPopup popup;  private CancellablePromise<List<VirtualFile>> pendingFetch;  // bumped whenever a pending fetch is cancelled, so that a result already on its way to the EDT is dropped  private int fetchGeneration;  private SwitchPrefetcher prefetcher;  // watches the modifiers of the action while the popup waits for its first files  private ModifierWatcher modifierWatcher;  private KeyEvent triggerEvent;  private int upTrigger;  private int dwTrigger;  private int windowHeight;  // public Dimension maxSize = new Dimension(1000, 1000);  // public Dimension minSize = new Dimension(150, 200);  private boolean isShifted = false;  private final StringBuilder filterQuery = new StringBuilder();  private FileNameFilterIndex filterIndex;  private int[] filterResult;  private Set<VirtualFile> listedFiles;  public TabSwitchProjectComponent(Project project) {    super(project);    thisProject = project;    JLabel pathLabel = Components.newPathLabel();    this.list = Components.newList(project, pathLabel);    this.listModel = (FileListModel) list.getModel();    this.previewPane = Components.newPreviewPane(project, list);    // this.list.setMaximumSize(maxSize);    this.builder = new PopupChooserBuilder(list);    this.builder      .setTitle(TITLE)      .setCancelOnWindowDeactivation(false)      .setCancelOnClickOutside(true)      .setMovable(true)      .setUseDimensionServiceForXYLocation(true)      // .setMinSize(minSize)      .setAutoselectOnMouseMove(false)      .setSouthComponent(Components.newListFooter(pathLabel))      .setItemChoosenCallback(new Runnable() {        @Override        public void run() {          closeAndOpenSelectedFile();        }      });  }  public static TabSwitchProjectComponent getHandler(Project project) {    return project.getComponent(TabSwitchProjectComponent.class);  }  @Override  public void projectOpened() {    ApplicationManager.getApplication().invokeLater(this::prewarm, ModalityState.NON_MODAL, myProject.getDisposed());    updatePrefetcher(TabSwitchXSettings.getInstance());    ApplicationManager.getApplication().getMessageBus().connect(myProject).subscribe(TabSwitchXSettings.TOPIC, this::updatePrefetcher);    myProject.getMessageBus().connect(myProject).subscribe(FileEditorManagerListener.FILE_EDITOR_MANAGER, new FileEditorManagerListener() {      @Override      public void fileOpened(@NotNull FileEditorManager source, @NotNull VirtualFile file) {        prefetchIcons(Collections.singletonList(file));      }    });  }  /**   * Resolves the icons of {@code files} in the background, so that painting them in the popup finds them cached.   */  private void prefetchIcons(List<VirtualFile> files) {    ReadAction.nonBlocking(() -> FileIconCache.getInstance(myProject).prefetch(files))      .expireWith(myProject)      .submit(AppExecutorUtil.getAppExecutorService());  }  @Override  public void projectClosed() {    if(prefetcher != null) {      KeyboardFocusManager.getCurrentKeyboardFocusManager().removeKeyEventDispatcher(prefetcher);      prefetcher.stop();      prefetcher = null;    }    discardPrepared();  }  private void updatePrefetcher(TabSwitchXSettings settings) {    if(settings.prefetchOnModifier && prefetcher == null) {      prefetcher = new SwitchPrefetcher(myProject, this);      KeyboardFocusManager.getCurrentKeyboardFocusManager().addKeyEventDispatcher(prefetcher);    } else if(!settings.prefetchOnModifier && prefetcher != null) {      KeyboardFocusManager.getCurrentKeyboardFocusManager().removeKeyEventDispatcher(prefetcher);      prefetcher.stop();      prefetcher = null;      discardPrepared();    }  }  /**   * Sets up the list and the snapshots of its visible rows for {@code files}, so that a following {@link #show} with   * the same files does not have to. Cheap enough for every press of the modifier, as the MRU snapshot is cached.   */  void prepare(List<VirtualFile> files) {    if(popup != null || files.isEmpty()) {      return;    }    if(listModel.getFiles() != files) {      listModel.setFiles(files);    }    listModel.prefetchSnapshots(Math.min(files.size(), 30));  }  /**   * Lays out the list set up by {@link #prepare}, if it was not shown or discarded since.   */  void prepareLayout() {    if(popup != null || listModel.getFiles().isEmpty()) {      return;    }    list.setVisibleRowCount(Math.min(listModel.getFiles().size(), 30));    list.getPreferredSize();  }  /**   * Drops the list made by {@link #prepare}, if it was not shown.   */  void discardPrepared() {    if(popup == null && !listModel.getFiles().isEmpty()) {      listModel.setFiles(Collections.emptyList());    }  }  /**   * Lays out the popup list, renderer and footer once with the files currently open, so that the first switch does   * not pay for class loading and a cold JIT.   */  private void prewarm() {    if(popup != null) {      return;    }    List<VirtualFile> files = new OpenTabFilesFileFetcher().getFiles(myProject);    prefetchIcons(files.subList(0, Math.min(files.size(), 30)));    listModel.setFiles(files);    list.getPreferredSize();    createPopup().dispose();    removeMouseListeners();    listModel.setFiles(Collections.emptyList());  }  public Dimension recalculateSize(final int height) {    Dimension preferredSize = null;    if(popup != null) {      Dimension currentSize = popup.getSize();      if(currentSize != null) {        System.out.println("WINDOW HEIGHT: " + height + " ; SIZE: (" + currentSize.getWidth() + ", " + currentSize.getHeight() + ")");        final Project prj = this.thisProject;        // notifyInfo(prj, "WINDOW SIZE: (" + currentSize.getWidth() + ", " + currentSize.getHeight() + ")");        // int cellHeight = list.getFixedCellHeight();        Rectangle cellBounds = list.getCellBounds(0, 0);        double cHeight = cellBounds.getHeight();        int cellHeight = (int) cHeight;        // list.getScrollableTracksViewportHeight()        int cellCount = list.getModel().getSize();        int prefHeight = cellHeight * cellCount;		System.out.println("CELL HEIGHT: " + cellHeight + "\tTOTAL HEIGHT: " + prefHeight);        // int cellWidth = list.getWidth();        // int cellWidth = (int) currentSize.getWidth();        int cellWidth = list.getWidth();		int newWidth = cellWidth + (previewPane.isShowing() ? previewPane.getPreferredSize().width : 0); // + 32 + 6;		  int goodSize = prefHeight + 53;		  int newHeight = currentSize.getHeight() < goodSize ? goodSize : prefHeight; //Integer.parseInt(currentSize.getHeight() + "");        // preferredSize = new Dimension(newWidth, prefHeight);        preferredSize = new Dimension(newWidth, newHeight);        System.out.println("PREFERRED SIZE: " + preferredSize);        JComponent contents = popup.getContent();		var j = contents.getComponent(0);        // System.out.println("COMPONENT: " + contents);        int visibleRows = list.getVisibleRowCount();        System.out.println("VISIBLE ROW COUNT: " + visibleRows);        int wantVisibleRows = visibleRows > 30 ? 30 : visibleRows < 1 ? 1 : cellCount;        list.setVisibleRowCount(wantVisibleRows);        System.out.println("WANTED ROWS COUNT: " + wantVisibleRows);        contents.setPreferredSize(preferredSize);        list.setPreferredSize(preferredSize);        popup.pack(true, true);      }    }    return preferredSize;  }  public void recalculatePosition() {    if(popup != null) {      JComponent component = popup.getContent();      Container parent = component != null ? component.getParent() : null;      Container grandparent = parent != null ? parent.getParent() : null;      Container grandparent2 = grandparent != null ? grandparent.getParent() : null;      Container popupDialog = grandparent2 != null ? grandparent2.getParent() : null;      IdeFrameImpl ideWindow = popupDialog != null ? (IdeFrameImpl) popupDialog.getParent() : null;      final String strComponent1 = component != null ? component.getClass().toString() : null;      final String strComponent2 = parent != null ? parent.getClass().toString() : null;      final String strComponent3 = grandparent != null ? grandparent.getClass().toString() : null;      final String strComponent4 = grandparent2 != null ? grandparent2.getClass().toString() : null;      final String strComponent5 = popupDialog != null ? popupDialog.getClass().toString() : null;      final String strComponent6 = ideWindow != null ? ideWindow.getClass().toString() : null;      System.out.println("JCOMPONENT IS:" + strComponent1 + "\n*** PARENT IS ***: " + strComponent2 + "\n*** GP IS ***: " + strComponent3 + "\nGP2 IS:" + strComponent4 + "\n*** DIALOG IS ***: " + strComponent5 + "\n*** IDEWindow IS ***: " + strComponent6);      if(ideWindow != null) {        Point winPoint = ideWindow.getLocation();        final int winX = winPoint != null ? winPoint.x : -1;        final int winY = winPoint != null ? winPoint.y : -1;        Dimension parentDimension = ideWindow.getSize();        Dimension dialogDimension = popupDialog.getSize();        final int componentX = (int) (winPoint.getX() + (parentDimension.getWidth() - dialogDimension.getWidth()) / 2);        // final int componentY = (int) (winPoint.getY() + (parentDimension.getHeight() - dialogDimension.getHeight()) / 2);        final int componentY = (int) (winPoint.getY() + 100);        System.out.println("\nWINPOINT: (" + winX + ", " + winY + ")\nRECALCULATED POSITION: (" + componentX + ", " + componentY + ")");        popup.setLocation(new Point(componentX, componentY));        popup.pack(false, true);      }    }  }  @Override  public boolean dispatchKeyEvent(KeyEvent event) {    // this.windowHeight =    if(popup != null && popup.isDisposed()) {      KeyboardFocusManager.getCurrentKeyboardFocusManager().removeKeyEventDispatcher(this);      return false;    } else if((event.getID() == KeyEvent.KEY_RELEASED)) {      int keyCode = event.getKeyCode();      if(keyCode == KeyEvent.VK_SHIFT) {        this.isShifted = false;      }      if(modifiers.get(keyCode)) {        if(keyCode == KeyEvent.VK_ESCAPE) {          close();        } else {          closeAndOpenSelectedFile();        }      }    } else if(event.getID() == KeyEvent.KEY_PRESSED) {      int keyCode = event.getKeyCode();      switch(keyCode) {        case KeyEvent.VK_UP:          moveUp();          break;        case KeyEvent.VK_DOWN:          moveDown();          break;        case KeyEvent.VK_TAB:          if(this.isShifted) {            moveUp();          } else {            moveDown();          }          break;        case KeyEvent.VK_ENTER:          closeAndOpenSelectedFile();          break;        case KeyEvent.VK_BACK_SPACE:          if(filterQuery.length() > 0) {            filterQuery.setLength(filterQuery.length() - 1);            applyFilter();          }          break;        case KeyEvent.VK_SHIFT:          this.isShifted = true;        case KeyEvent.VK_CONTROL:        case KeyEvent.VK_ALT:        case KeyEvent.VK_ALT_GRAPH:        case KeyEvent.VK_META:          break;        default:          moveOnTrigger(event);          break;      }    }    return true;  }  /**   * Shows the popup with {@code files} right away and replaces them by the result of {@code refresh} once it arrives.   * If there are no files yet, the popup is shown with the result of {@code refresh} instead, unless the modifier of   * the action was released in the meantime, as its release would not close the popup anymore.   */  public void show(KeyEvent event, boolean moveUp, boolean moveOnShow, List<VirtualFile> files,                   @Nullable CancellablePromise<List<VirtualFile>> refresh) {    cancelPendingFetch();    if(files.isEmpty() && refresh != null) {      modifierWatcher = new ModifierWatcher(event);      KeyboardFocusManager.getCurrentKeyboardFocusManager().addKeyEventDispatcher(modifierWatcher);      whenFetched(refresh, result -> {        boolean held = modifierWatcher.isHeld();        stopModifierWatcher();        if(held) {          show(event, moveUp, moveOnShow, result);        }      });      return;    }    show(event, moveUp, moveOnShow, files);    if(refresh != null) {      if(popup != null && popup.isVisible()) {        whenFetched(refresh, this::refreshFiles);      } else {        refresh.cancel();      }    }  }  public void show(KeyEvent event, boolean moveUp, boolean moveOnShow, List<VirtualFile> files) {    SwitchWatchdog.getInstance().enter(SwitchWatchdog.Phase.SHOW);    try {      showPopup(event, moveUp, moveOnShow, files);    } finally {      SwitchWatchdog.getInstance().exit(SwitchWatchdog.Phase.SHOW);    }  }  private void showPopup(KeyEvent event, boolean moveUp, boolean moveOnShow, List<VirtualFile> files) {    setupTrigger(moveUp, event);    if(cannotShow(files)) {		return;	}    if(popup != null) {		popup.dispose();	}    triggerEvent = event;    prepareListWithFiles(files);    popup = createPopup();    setModifiers(modifiers, event);    KeyboardFocusManager.getCurrentKeyboardFocusManager().addKeyEventDispatcher(this);    popup.showCenteredInCurrentWindow(myProject);	popup.setUiVisible(false);    this.recalculateSize(this.windowHeight);    this.recalculatePosition();	popup.setUiVisible(true);    // ToolWindow toolWindow = ToolWindowManager.getInstance(project).getToolWindow(ID);    // ConsoleView consoleView = TextConsoleBuilderFactory.getInstance().createBuilder(project).getConsole();    // Content content = toolWindow.getContentManager().getFactory().createContent(consoleView.getComponent(), "A Console Foo Bar", true);    // toolWindow.getContentManager().addContent(content);    // popup.setLocation(new Point());    if(moveOnShow) {      move(0);    }    SwitchMetrics.getInstance().recordVisible(event);  }  /**   * Hands the result of {@code promise} to {@code consumer} on the EDT, unless another fetch was started or the popup   * was closed in the meantime.   */  private void whenFetched(CancellablePromise<List<VirtualFile>> promise, Consumer<List<VirtualFile>> consumer) {    int generation = ++fetchGeneration;    pendingFetch = promise;    promise.onSuccess(files -> ApplicationManager.getApplication().invokeLater(() -> {      if(generation == fetchGeneration) {        pendingFetch = null;        consumer.accept(files);      }    }, ModalityState.any(), myProject.getDisposed()));  }  private void cancelPendingFetch() {    fetchGeneration++;    if(pendingFetch != null) {      pendingFetch.cancel();      pendingFetch = null;    }    stopModifierWatcher();  }  private void stopModifierWatcher() {    if(modifierWatcher != null) {      KeyboardFocusManager.getCurrentKeyboardFocusManager().removeKeyEventDispatcher(modifierWatcher);      modifierWatcher = null;    }  }  private static void setModifiers(BitSet modifiers, KeyEvent event) {    modifiers.set(KeyEvent.VK_CONTROL, event.isControlDown());    modifiers.set(KeyEvent.VK_META, event.isMetaDown());    modifiers.set(KeyEvent.VK_ALT, event.isAltDown());    modifiers.set(KeyEvent.VK_ALT_GRAPH, event.isAltGraphDown());    modifiers.set(KeyEvent.VK_SHIFT, event.isShiftDown());  }  /**   * Tells whether all modifiers of the action are still held, without consuming any key event.   */  private static class ModifierWatcher implements KeyEventDispatcher {    private final BitSet held = new BitSet();    private boolean released;    ModifierWatcher(KeyEvent event) {      setModifiers(held, event);    }    boolean isHeld() {      return !released;    }    @Override    public boolean dispatchKeyEvent(KeyEvent event) {      if(event.getID() == KeyEvent.KEY_RELEASED && held.get(event.getKeyCode())) {        released = true;      }      return false;    }  }  /**   * Replaces the files of the visible popup, keeping the typed filter and the selected file.   */  private void refreshFiles(List<VirtualFile> files) {    if(popup == null || !popup.isVisible() || files.equals(listModel.getFiles())) {      return;    }    VirtualFile selected = (VirtualFile) list.getSelectedValue();    listModel.setFiles(files);    filterIndex = null;    list.setVisibleRowCount(Math.min(files.size(), 30));    if(filterQuery.length() > 0) {      applyFilter();    }    for(int row = 0; row < listModel.getSize(); row++) {      if(listModel.getElementAt(row).equals(selected)) {        list.setSelectedIndex(row);        list.ensureIndexIsVisible(row);        break;      }    }    this.recalculateSize(this.windowHeight);  }  private void setupTrigger(boolean moveUp, KeyEvent event) {    if(moveUp) {      upTrigger = event.getKeyCode();    } else {      dwTrigger = event.getKeyCode();    }  }  private boolean cannotShow(List<VirtualFile> files) {    return files.isEmpty() || popup != null && popup.isVisible();  }  private void prepareListWithFiles(final List<VirtualFile> files) {    if(listModel.getFiles() != files) {      listModel.setFiles(files);    } else {      // prepared ahead, keep the snapshots      listModel.setFilter(null, 0);      listModel.setExtraFiles(Collections.emptyList());    }    list.clearSelection();    filterQuery.setLength(0);    filterIndex = null;    int fileCount = files.size();    fileCount = fileCount > 30 ? 30 : fileCount;    // list.setVisibleRowCount(files.size());    System.out.println("Setting visible file count to: " + fileCount);    list.setVisibleRowCount(fileCount);    // int cellWidth = list.getFixedCellWidth();    // int cellHeight = list.getFixedCellHeight();    // int cellWidth = list.getFixedCellWidth();    // int cellHeight = list.getFixedCellHeight();    // int cellHeight = 32;    // int listHeight = cellHeight * fileCount;    // Dimension listDimension = new Dimension(cellWidth + 10, listHeight);    // System.out.println(String.format("NEW LIST SIZE (cellWidth: %d, cellHeight: %d, files: %d): ", cellWidth, cellHeight, fileCount) + listDimension);    // list.setPreferredSize(listDimension);  }  private void moveOnTrigger(KeyEvent event) {    if(event.getKeyCode() != upTrigger && event.getKeyCode() != dwTrigger) {      // close();      char ch = getFilterChar(event.getKeyCode());      if(ch != 0) {        filterQuery.append(ch);        applyFilter();      }    } else {      move((event.getKeyCode() == dwTrigger && event.isShiftDown()) || (event.getKeyCode() == upTrigger && !event.isShiftDown()));    }  }  /**   * @return the lowercase character a key adds to the type-to-filter query, or 0 if it does not filter. Works on   * key codes because the key chars are mangled while the modifier of the action is held.   */  private static char getFilterChar(int keyCode) {    if(keyCode >= KeyEvent.VK_A && keyCode <= KeyEvent.VK_Z) {      return (char) ('a' + keyCode - KeyEvent.VK_A);    } else if(keyCode >= KeyEvent.VK_0 && keyCode <= KeyEvent.VK_9) {      return (char) ('0' + keyCode - KeyEvent.VK_0);    } else if(keyCode == KeyEvent.VK_PERIOD) {      return '.';    } else if(keyCode == KeyEvent.VK_MINUS) {      return '-';    }    return 0;  }  /**   * Narrows the list to the files matching the typed query, followed by the matching project files that are not   * listed if the switcher searches project files. The name index is built on the first typed key and reused for every   * following one.   */  private void applyFilter() {    if(filterQuery.length() == 0) {      listModel.setFilter(null, 0);      listModel.setExtraFiles(Collections.emptyList());    } else {      if(filterIndex == null) {        filterIndex = new FileNameFilterIndex(listModel.getFiles());        filterResult = new int[filterIndex.size()];        listedFiles = null;      }      listModel.setFilter(filterResult, filterIndex.filter(filterQuery, filterResult));      listModel.setExtraFiles(findProjectFiles());    }    if(popup != null) {      popup.setCaption(filterQuery.length() == 0 ? TITLE : TITLE + ": " + filterQuery);    }    if(listModel.getSize() > 0) {      list.setSelectedIndex(0);      list.ensureIndexIsVisible(0);    }  }  private List<VirtualFile> findProjectFiles() {    if(!TabSwitchXSettings.getInstance().searchProjectFiles) {      return Collections.emptyList();    }    if(listedFiles == null) {      listedFiles = new HashSet<>(listModel.getFiles());    }    return ProjectFileNameIndex.getInstance(myProject).find(filterQuery, PROJECT_FILE_LIMIT, listedFiles::contains);  }  private void move(boolean up) {    move(up ? -1 : 1);  }  private void moveUp() {    move(-1);  }  private void moveDown() {    move(1);  }  private void move(int offset) {    int size = list.getModel().getSize();    if(size == 0) {      return;    }    int next = (list.getSelectedIndex() + size + offset) % size;    list.setSelectedIndex(next);    list.ensureIndexIsVisible(next);  }  /**   * Creates the popup, with the preview pane next to the list if the preview is switched on.   */  private JBPopup createPopup() {    builder.setEastComponent(TabSwitchXSettings.getInstance().showPreview ? previewPane : null);    return builder.createPopup();  }  public void closeAndOpenSelectedFile() {    SwitchWatchdog.getInstance().enter(SwitchWatchdog.Phase.OPEN);    try {      close();      openSelectedFile();      if(triggerEvent != null) {        SwitchMetrics.getInstance().recordOpen(triggerEvent);        triggerEvent = null;      }    } finally {      SwitchWatchdog.getInstance().exit(SwitchWatchdog.Phase.OPEN);    }  }  private void close() {    cancelPendingFetch();    disposePopup();    removeMouseListeners();    KeyboardFocusManager.getCurrentKeyboardFocusManager().removeKeyEventDispatcher(this);  }  private void openSelectedFile() {    VirtualFile file = (VirtualFile) list.getSelectedValue();    if(file != null && file.isValid()) {      FileEditorManager.getInstance(myProject).openFile(file, true, true);    }  }  private void disposePopup() {    if(popup != null) {      popup.cancel();      popup.dispose();      popup = null;    }  }  /**   * Workaround for MouseListener leak added in PopupChooserBuilder.createPopup().   */  private void removeMouseListeners() {    for(MouseListener listener : list.getMouseListeners()) {      removeMouseListener(listener);    }    for(MouseWheelListener listener : list.getMouseWheelListeners()) {      removeMouseWheelListener(listener);    }  }  private void removeMouseListener(MouseListener listener) {    if(listener.getClass().getName().startsWith("com.intellij.openapi.ui.popup.PopupChooserBuilder")) {      list.removeMouseListener(listener);    }  }  private void removeMouseWheelListener(MouseWheelListener listener) {    if(listener.getClass().getName().startsWith("com.intellij.openapi.ui.popup.PopupChooserBuilder")) {      list.removeMouseWheelListener(listener);    }  }  public static void notifyError(@Nullable Project project, String content) {    NotificationGroupManager.getInstance()      .getNotificationGroup("TabSwitchX Group")      .createNotification(content, NotificationType.ERROR)      .notify(project);  }  public static void notifyInfo(@Nullable Project project, String content) {    NotificationGroupManager.getInstance()      .getNotificationGroup("TabSwitchX Group")      .createNotification(content, NotificationType.INFORMATION)      .notify(project);  }}
\ No newline at end of file
@@ -1,52 +1,124 @@
 // Copyright 2000-2022 JetBrains s.r.o. and other contributors. Use of this source code is governed by the Apache 2.0 license that can be found in the LICENSE file.
-/* This class is not used currently -- using notifications instead */
 
 package org.intellij.ideaplugins.tabswitchx;
 
+import com.intellij.openapi.Disposable;
 import com.intellij.openapi.wm.ToolWindow;
+import com.intellij.ui.components.JBScrollPane;
+import com.intellij.ui.table.JBTable;
+import org.intellij.ideaplugins.tabswitchx.metrics.LatencyHistogram;
+import org.intellij.ideaplugins.tabswitchx.metrics.SwitchMetrics;
 
 import javax.swing.*;
-import java.util.Calendar;
+import javax.swing.table.AbstractTableModel;
+import java.awt.*;
+import java.awt.event.HierarchyEvent;
+import java.util.List;
 
-public class TabSwitchXConsole {
+/**
+ * Tool window content showing the tab switch latencies collected by {@link SwitchMetrics}. Refreshes itself every
+ * second while it is showing.
+ */
+public class TabSwitchXConsole implements Disposable {
 
-  private JButton refreshToolWindowButton;
-  private JButton hideToolWindowButton;
-  private JLabel currentDate;
-  private JLabel currentTime;
-  private JLabel timeZone;
-  private JPanel myToolWindowContent;
+  private static final String[] COLUMNS = {"Phase", "Count", "p50 (ms)", "p95 (ms)", "p99 (ms)", "Max (ms)"};
+
+  private final JPanel myToolWindowContent = new JPanel(new BorderLayout());
+  private final MetricsTableModel tableModel = new MetricsTableModel();
+  private final Timer refreshTimer = new Timer(1000, e -> refresh());
 
   public TabSwitchXConsole(ToolWindow toolWindow) {
+    JButton refreshToolWindowButton = new JButton("Refresh");
+    JButton resetButton = new JButton("Reset");
+    JButton hideToolWindowButton = new JButton("Hide");
     hideToolWindowButton.addActionListener(e -> toolWindow.hide(null));
-    refreshToolWindowButton.addActionListener(e -> currentDateTime());
+    refreshToolWindowButton.addActionListener(e -> refresh());
+    resetButton.addActionListener(e -> {
+      SwitchMetrics.getInstance().reset();
+      refresh();
+    });
+
+    JPanel buttons = new JPanel(new FlowLayout(FlowLayout.LEFT));
+    buttons.add(refreshToolWindowButton);
+    buttons.add(resetButton);
+    buttons.add(hideToolWindowButton);
+
+    myToolWindowContent.add(new JBScrollPane(new JBTable(tableModel)), BorderLayout.CENTER);
+    myToolWindowContent.add(buttons, BorderLayout.SOUTH);
+
+    myToolWindowContent.addHierarchyListener(e -> {
+      if ((e.getChangeFlags() & HierarchyEvent.SHOWING_CHANGED) != 0) {
+        updateRefreshTimer();
+      }
+    });
+    updateRefreshTimer();
+  }
 
-    this.currentDateTime();
+  private void updateRefreshTimer() {
+    if (myToolWindowContent.isShowing()) {
+      refresh();
+      refreshTimer.start();
+    } else {
+      refreshTimer.stop();
+    }
   }
 
-  public void currentDateTime() {
-    // Get current date and time
-    Calendar instance = Calendar.getInstance();
-    currentDate.setText(
-      instance.get(Calendar.DAY_OF_MONTH) + "/"
-        + (instance.get(Calendar.MONTH) + 1) + "/"
-        + instance.get(Calendar.YEAR)
-    );
-    currentDate.setIcon(new ImageIcon(getClass().getResource("/toolWindow/Calendar-icon.png")));
-    int min = instance.get(Calendar.MINUTE);
-    String strMin = min < 10 ? "0" + min : String.valueOf(min);
-    currentTime.setText(instance.get(Calendar.HOUR_OF_DAY) + ":" + strMin);
-    currentTime.setIcon(new ImageIcon(getClass().getResource("/toolWindow/Time-icon.png")));
-    // Get time zone
-    long gmt_Offset = instance.get(Calendar.ZONE_OFFSET); // offset from GMT in milliseconds
-    String str_gmt_Offset = String.valueOf(gmt_Offset / 3600000);
-    str_gmt_Offset = (gmt_Offset > 0) ? "GMT + " + str_gmt_Offset : "GMT - " + str_gmt_Offset;
-    timeZone.setText(str_gmt_Offset);
-    timeZone.setIcon(new ImageIcon(getClass().getResource("/toolWindow/Time-zone-icon.png")));
+  public void refresh() {
+    tableModel.fireTableDataChanged();
   }
 
   public JPanel getContent() {
     return myToolWindowContent;
   }
 
-}
\ No newline at end of file
+  @Override
+  public void dispose() {
+    refreshTimer.stop();
+  }
+
+  private static final class MetricsTableModel extends AbstractTableModel {
+
+    private List<LatencyHistogram> histograms() {
+      return SwitchMetrics.getInstance().getHistograms();
+    }
+
+    @Override
+    public int getRowCount() {
+      return histograms().size();
+    }
+
+    @Override
+    public int getColumnCount() {
+      return COLUMNS.length;
+    }
+
+    @Override
+    public String getColumnName(int column) {
+      return COLUMNS[column];
+    }
+
+    @Override
+    public Object getValueAt(int row, int column) {
+      LatencyHistogram histogram = histograms().get(row);
+      switch(column) {
+        case 0:
+          return histogram.getName();
+        case 1:
+          return histogram.getCount();
+        case 2:
+          return toMillis(histogram.getPercentileNanos(50));
+        case 3:
+          return toMillis(histogram.getPercentileNanos(95));
+        case 4:
+          return toMillis(histogram.getPercentileNanos(99));
+        default:
+          return toMillis(histogram.getMaxNanos());
+      }
+    }
+
+    private static String toMillis(long nanos) {
+      return String.format("%.1f", nanos / 1_000_000.0);
+    }
+  }
+
+}
@@ -1,5 +1,4 @@
 // Copyright 2000-2022 JetBrains s.r.o. and other contributors. Use of this source code is governed by the Apache 2.0 license that can be found in the LICENSE file.
-/* This class is not used currently -- using notifications instead */
 
 package org.intellij.ideaplugins.tabswitchx;
 
@@ -21,8 +20,9 @@ public class TabSwitchXConsoleFactory implements ToolWindowFactory {
   public void createToolWindowContent(@NotNull Project project, @NotNull ToolWindow toolWindow) {
     TabSwitchXConsole myToolWindow = new TabSwitchXConsole(toolWindow);
     ContentFactory contentFactory = ContentFactory.SERVICE.getInstance();
-    Content content = contentFactory.createContent(myToolWindow.getContent(), "", false);
+    Content content = contentFactory.createContent(myToolWindow.getContent(), "Switch Latency", false);
+    content.setDisposer(myToolWindow);
     toolWindow.getContentManager().addContent(content);
   }
 
-}
\ No newline at end of file
+}
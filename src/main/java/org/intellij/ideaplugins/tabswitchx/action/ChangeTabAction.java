@@ -3,6 +3,7 @@ package org.intellij.ideaplugins.tabswitchx.action;
 import com.intellij.openapi.project.Project;
 import com.intellij.openapi.vfs.VirtualFile;
 import org.intellij.ideaplugins.tabswitchx.filefetcher.FileFetcher;
+import org.jetbrains.concurrency.CancellablePromise;
 
 import java.util.List;
 
@@ -15,7 +16,12 @@ public abstract class ChangeTabAction extends TabAction {
 
   @Override
   protected List<VirtualFile> getOpenFiles(Project project) {
-    return fileFetcher.getFiles(project);
+    return fileFetcher.getCachedFiles(project);
+  }
+
+  @Override
+  protected CancellablePromise<List<VirtualFile>> getOpenFilesAsync(Project project) {
+    return fileFetcher.isStale(project) ? fileFetcher.getFilesAsync(project) : null;
   }
 
   @Override
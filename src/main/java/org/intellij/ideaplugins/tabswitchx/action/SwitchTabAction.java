@@ -15,6 +15,8 @@
  */
 package org.intellij.ideaplugins.tabswitchx.action;
 
+import org.intellij.ideaplugins.tabswitchx.mru.TabTogglePairs;
+import org.intellij.ideaplugins.tabswitchx.settings.TabSwitchXSettings;
 import org.jetbrains.annotations.Nullable;
 
 import com.intellij.ide.ui.UISettings;
@@ -22,25 +24,48 @@ import com.intellij.openapi.actionSystem.AnAction;
 import com.intellij.openapi.actionSystem.AnActionEvent;
 import com.intellij.openapi.actionSystem.PlatformDataKeys;
 import com.intellij.openapi.fileEditor.FileEditorManager;
+import com.intellij.openapi.fileEditor.ex.FileEditorManagerEx;
 import com.intellij.openapi.fileEditor.impl.EditorHistoryManager;
+import com.intellij.openapi.fileEditor.impl.EditorWindow;
 import com.intellij.openapi.project.DumbAware;
 import com.intellij.openapi.project.Project;
 import com.intellij.openapi.vfs.VirtualFile;
 
+/**
+ * Toggles between the current and the previously selected tab. The previous tab comes from {@link TabTogglePairs},
+ * either for the whole project or, if so configured, for the current split window.
+ */
 public class SwitchTabAction extends AnAction implements DumbAware {
 
   @Override
   public void actionPerformed(AnActionEvent event) {
     Project project = PlatformDataKeys.PROJECT.getData(event.getDataContext());
-    FileEditorManager fileEditorManager = FileEditorManager.getInstance(project);
-    VirtualFile file = getFile(project, fileEditorManager);
+    if (project == null) return;
+    FileEditorManagerEx fileEditorManager = FileEditorManagerEx.getInstanceEx(project);
+    EditorWindow window = TabSwitchXSettings.getInstance().toggleWithinSplit ? fileEditorManager.getCurrentWindow() : null;
+    VirtualFile file = getFile(project, fileEditorManager, window);
     if (file != null && file.isValid()) {
-      fileEditorManager.openFile(file, true, true);
+      if (window != null) {
+        fileEditorManager.openFileWithProviders(file, true, window);
+      } else {
+        fileEditorManager.openFile(file, true, true);
+      }
+    }
+  }
+
+  @Nullable
+  private VirtualFile getFile(Project project, FileEditorManager fileEditorManager, @Nullable EditorWindow window) {
+    TabTogglePairs pairs = TabTogglePairs.getInstance(project);
+    VirtualFile previous = window != null ? pairs.getPrevious(window) : pairs.getPrevious();
+    if (previous == null) {
+      // nothing toggled since the project was opened
+      return window != null ? null : getFileFromHistory(project, fileEditorManager);
     }
+    return canShowRecentFiles() || fileEditorManager.isFileOpen(previous) ? previous : null;
   }
 
   @Nullable
-  private VirtualFile getFile(Project project, FileEditorManager fileEditorManager) {
+  private VirtualFile getFileFromHistory(Project project, FileEditorManager fileEditorManager) {
     boolean showRecentFiles = canShowRecentFiles();
     VirtualFile[] recentFiles = EditorHistoryManager.getInstance(project).getFiles();
     for (int i = recentFiles.length - 2; i >= 0; i--) {
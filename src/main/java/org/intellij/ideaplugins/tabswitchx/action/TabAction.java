@@ -19,6 +19,10 @@ import java.awt.event.KeyEvent;
 import java.util.List;
 
 import org.intellij.ideaplugins.tabswitchx.TabSwitchProjectComponent;
+import org.intellij.ideaplugins.tabswitchx.metrics.SwitchMetrics;
+import org.intellij.ideaplugins.tabswitchx.metrics.SwitchWatchdog;
+import org.jetbrains.annotations.Nullable;
+import org.jetbrains.concurrency.CancellablePromise;
 
 import com.intellij.openapi.actionSystem.AnAction;
 import com.intellij.openapi.actionSystem.AnActionEvent;
@@ -29,8 +33,20 @@ import com.intellij.openapi.vfs.VirtualFile;
 
 public abstract class TabAction extends AnAction implements DumbAware {
 
+  /**
+   * Called on the EDT, must not block.
+   */
   protected abstract List<VirtualFile> getOpenFiles(Project project);
 
+  /**
+   * @return promise of an up to date list that replaces the one of {@link #getOpenFiles(Project)} in the shown popup,
+   * or {@code null} if that one is up to date already.
+   */
+  @Nullable
+  protected CancellablePromise<List<VirtualFile>> getOpenFilesAsync(Project project) {
+    return null;
+  }
+
   /**
    * @return true if to move down selected index position one step on show of list popup chooser window.
    */
@@ -45,7 +61,20 @@ public abstract class TabAction extends AnAction implements DumbAware {
   public void actionPerformed(AnActionEvent event) {
     Project project = getProject(event);
     if (canShowTabSwitchPopup(event, project)) {
-      TabSwitchProjectComponent.getHandler(project).show(getKeyEvent(event), moveUp(), moveOnShow(), getOpenFiles(project));
+      TabSwitchProjectComponent.getHandler(project).show(getKeyEvent(event), moveUp(), moveOnShow(), fetchOpenFiles(project),
+                                                         getOpenFilesAsync(project));
+    }
+  }
+
+  private List<VirtualFile> fetchOpenFiles(Project project) {
+    SwitchWatchdog.getInstance().enter(SwitchWatchdog.Phase.FETCH);
+    try {
+      long start = System.nanoTime();
+      List<VirtualFile> files = getOpenFiles(project);
+      SwitchMetrics.getInstance().recordFetch(System.nanoTime() - start);
+      return files;
+    } finally {
+      SwitchWatchdog.getInstance().exit(SwitchWatchdog.Phase.FETCH);
     }
   }
 
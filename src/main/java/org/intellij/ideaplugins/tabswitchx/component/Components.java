@@ -19,6 +19,13 @@ public final class Components {
     return new FooterComponentFactory().create(pathLabel);
   }
 
+  /**
+   * @return a pane previewing the file selected in {@code list}.
+   */
+  public static JComponent newPreviewPane(Project project, JList list) {
+    return new PreviewPane(project, list);
+  }
+
   public static JLabel newPathLabel() {
     return new PathLabelComponentFactory().create();
   }
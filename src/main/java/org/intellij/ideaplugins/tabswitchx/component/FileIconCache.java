@@ -0,0 +1,134 @@
+package org.intellij.ideaplugins.tabswitchx.component;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.swing.Icon;
+
+import org.jetbrains.annotations.NotNull;
+
+import com.intellij.openapi.Disposable;
+import com.intellij.openapi.fileTypes.FileTypeEvent;
+import com.intellij.openapi.fileTypes.FileTypeListener;
+import com.intellij.openapi.fileTypes.FileTypeManager;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.util.Iconable;
+import com.intellij.openapi.vfs.VirtualFile;
+import com.intellij.openapi.vfs.VirtualFileManager;
+import com.intellij.openapi.vfs.VirtualFileWithId;
+import com.intellij.openapi.vfs.newvfs.BulkFileListener;
+import com.intellij.openapi.vfs.newvfs.events.VFileContentChangeEvent;
+import com.intellij.openapi.vfs.newvfs.events.VFileDeleteEvent;
+import com.intellij.openapi.vfs.newvfs.events.VFileEvent;
+import com.intellij.openapi.vfs.newvfs.events.VFileMoveEvent;
+import com.intellij.openapi.vfs.newvfs.events.VFilePropertyChangeEvent;
+import com.intellij.util.IconUtil;
+
+/**
+ * Per project cache of the file icons shown in the switcher, so that the icon providers run once per file and not
+ * once per popup. Icon providers may decorate the icon depending on the project, so the cache lives and dies with
+ * it. Entries are keyed by the VFS id of the file and whether it is writable, and the least recently used ones are
+ * dropped beyond {@link #MAX_ENTRIES}.
+ * <p>
+ * Entries are dropped when the file types change, and when a file is renamed, moved, deleted, changes its writable
+ * flag or its content, as any of these may change the icon.
+ */
+public class FileIconCache implements Disposable {
+
+  private static final int MAX_ENTRIES = 2048;
+
+  private final Project project;
+
+  private final Map<Long, Icon> icons = new LinkedHashMap<Long, Icon>(256, 0.75f, true) {
+    @Override
+    protected boolean removeEldestEntry(Map.Entry<Long, Icon> eldest) {
+      return size() > MAX_ENTRIES;
+    }
+  };
+
+  public FileIconCache(@NotNull Project project) {
+    this.project = project;
+    var connection = project.getMessageBus().connect(this);
+    connection.subscribe(FileTypeManager.TOPIC, new FileTypeListener() {
+      @Override
+      public void fileTypesChanged(@NotNull FileTypeEvent event) {
+        clear();
+      }
+    });
+    connection.subscribe(VirtualFileManager.VFS_CHANGES, new BulkFileListener() {
+      @Override
+      public void after(@NotNull List<? extends VFileEvent> events) {
+        for (VFileEvent event : events) {
+          if (event instanceof VFilePropertyChangeEvent || event instanceof VFileDeleteEvent
+              || event instanceof VFileMoveEvent || event instanceof VFileContentChangeEvent) {
+            remove(event.getFile());
+          }
+        }
+      }
+    });
+  }
+
+  public static FileIconCache getInstance(@NotNull Project project) {
+    return project.getService(FileIconCache.class);
+  }
+
+  /**
+   * Must be called on the EDT or in a read action.
+   *
+   * @return the icon of {@code file} with its read-only status, from the cache if possible.
+   */
+  public Icon getIcon(@NotNull VirtualFile file) {
+    if (!(file instanceof VirtualFileWithId)) {
+      return IconUtil.getIcon(file, Iconable.ICON_FLAG_READ_STATUS, project);
+    }
+    long key = key((VirtualFileWithId) file, file.isWritable());
+    Icon icon = get(key);
+    if (icon == null) {
+      // resolved outside the lock, a concurrent resolution of the same icon is harmless
+      icon = IconUtil.getIcon(file, Iconable.ICON_FLAG_READ_STATUS, project);
+      put(key, icon);
+    }
+    return icon;
+  }
+
+  /**
+   * Resolves the icons of {@code files} ahead of the first paint. Must be called on the EDT or in a read action.
+   */
+  public void prefetch(@NotNull List<VirtualFile> files) {
+    for (VirtualFile file : files) {
+      if (project.isDisposed()) return;
+      if (file.isValid()) {
+        getIcon(file);
+      }
+    }
+  }
+
+  private static long key(VirtualFileWithId file, boolean writable) {
+    return (long) file.getId() << 1 | (writable ? 1 : 0);
+  }
+
+  private synchronized Icon get(long key) {
+    return icons.get(key);
+  }
+
+  private synchronized void put(long key, Icon icon) {
+    icons.put(key, icon);
+  }
+
+  private synchronized void remove(VirtualFile file) {
+    if (file instanceof VirtualFileWithId) {
+      icons.remove(key((VirtualFileWithId) file, true));
+      icons.remove(key((VirtualFileWithId) file, false));
+    }
+  }
+
+  private synchronized void clear() {
+    icons.clear();
+  }
+
+  @Override
+  public void dispose() {
+    clear();
+  }
+}
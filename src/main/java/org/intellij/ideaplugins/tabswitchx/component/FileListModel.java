@@ -0,0 +1,221 @@
+package org.intellij.ideaplugins.tabswitchx.component;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+import javax.swing.AbstractListModel;
+
+import com.intellij.openapi.vfs.VirtualFile;
+
+/**
+ * List model of the switcher popup. One instance lives as long as the popup list, and every invocation only swaps
+ * the files it shows.
+ * <p>
+ * The files are the list handed out by the MRU or VCS index, read by position and never copied. Alongside them the
+ * model keeps a {@link FileRenderSnapshot} per row, built when the row is first painted and rebuilt only after it was
+ * {@link #invalidate(VirtualFile) invalidated}, so rows that are never scrolled into view cost nothing. The built
+ * snapshots are also indexed by file, so that invalidating, e.g. on every keystroke in an editor, is a lookup.
+ * <p>
+ * A {@link #setFilter(int[], int) filter} narrows the rows to a subset of the files without touching the snapshots,
+ * and {@link #setExtraFiles(List) extra files}, e.g. project files matching the filter, are shown after those rows.
+ */
+public class FileListModel extends AbstractListModel<VirtualFile> {
+
+  private static final FileRenderSnapshot[] NO_SNAPSHOTS = new FileRenderSnapshot[0];
+
+  private final Function<VirtualFile, FileRenderSnapshot> snapshotFactory;
+  private List<VirtualFile> files = Collections.emptyList();
+  private FileRenderSnapshot[] snapshots = NO_SNAPSHOTS;
+  private int[] view;
+  private int viewSize;
+  private List<VirtualFile> extraFiles = Collections.emptyList();
+  private FileRenderSnapshot[] extraSnapshots = NO_SNAPSHOTS;
+  // file to index into snapshots or extraSnapshots, for the snapshots that are built
+  private final Map<VirtualFile, Integer> snapshotIndices = new HashMap<>();
+  private final Map<VirtualFile, Integer> extraSnapshotIndices = new HashMap<>();
+
+  FileListModel(Function<VirtualFile, FileRenderSnapshot> snapshotFactory) {
+    this.snapshotFactory = snapshotFactory;
+  }
+
+  public void setFiles(List<VirtualFile> files) {
+    int oldSize = getSize();
+    this.files = files;
+    this.snapshots = files.isEmpty() ? NO_SNAPSHOTS : new FileRenderSnapshot[files.size()];
+    this.view = null;
+    this.extraFiles = Collections.emptyList();
+    this.extraSnapshots = NO_SNAPSHOTS;
+    snapshotIndices.clear();
+    extraSnapshotIndices.clear();
+    fireSizeChanged(oldSize, getSize());
+  }
+
+  /**
+   * Shows only the files at the given indices, in the given order.
+   *
+   * @param indices indices into the files, or {@code null} to show all of them. Not copied.
+   * @param count   number of indices to use.
+   */
+  public void setFilter(int[] indices, int count) {
+    int oldSize = getSize();
+    this.view = indices;
+    this.viewSize = count;
+    fireSizeChanged(oldSize, getSize());
+  }
+
+  /**
+   * Shows {@code files} after the rows of the files, whether filtered or not. Cleared by {@link #setFiles(List)}.
+   *
+   * @param files files not among the files of the list. Not copied.
+   */
+  public void setExtraFiles(List<VirtualFile> files) {
+    if (files.isEmpty() && extraFiles.isEmpty()) return;
+    int oldSize = getSize();
+    this.extraFiles = files;
+    this.extraSnapshots = files.isEmpty() ? NO_SNAPSHOTS : new FileRenderSnapshot[files.size()];
+    extraSnapshotIndices.clear();
+    fireSizeChanged(oldSize, getSize());
+  }
+
+  private void fireSizeChanged(int oldSize, int newSize) {
+    if (newSize < oldSize) {
+      fireIntervalRemoved(this, newSize, oldSize - 1);
+    } else if (newSize > oldSize) {
+      fireIntervalAdded(this, oldSize, newSize - 1);
+    }
+    if (Math.min(oldSize, newSize) > 0) {
+      fireContentsChanged(this, 0, Math.min(oldSize, newSize) - 1);
+    }
+  }
+
+  public List<VirtualFile> getFiles() {
+    return files;
+  }
+
+  List<VirtualFile> getExtraFiles() {
+    return extraFiles;
+  }
+
+  @Override
+  public int getSize() {
+    return getFileRows() + extraFiles.size();
+  }
+
+  private int getFileRows() {
+    return view != null ? viewSize : files.size();
+  }
+
+  @Override
+  public VirtualFile getElementAt(int index) {
+    int fileRows = getFileRows();
+    return index < fileRows ? files.get(toFileIndex(index)) : extraFiles.get(index - fileRows);
+  }
+
+  FileRenderSnapshot getSnapshot(int index) {
+    int fileRows = getFileRows();
+    if (index >= fileRows) {
+      FileRenderSnapshot snapshot = extraSnapshots[index - fileRows];
+      if (snapshot == null) {
+        snapshot = snapshotFactory.apply(extraFiles.get(index - fileRows));
+        extraSnapshots[index - fileRows] = snapshot;
+        extraSnapshotIndices.put(extraFiles.get(index - fileRows), index - fileRows);
+      }
+      return snapshot;
+    }
+    int fileIndex = toFileIndex(index);
+    FileRenderSnapshot snapshot = snapshots[fileIndex];
+    if (snapshot == null) {
+      snapshot = snapshotFactory.apply(files.get(fileIndex));
+      snapshots[fileIndex] = snapshot;
+      snapshotIndices.put(files.get(fileIndex), fileIndex);
+    }
+    return snapshot;
+  }
+
+  /**
+   * @return the file with the longest name, to size the cell height and everything around the name by, or
+   * {@code null} if there are no files.
+   */
+  VirtualFile getPrototypeFile() {
+    VirtualFile result = null;
+    int length = -1;
+    for (VirtualFile file : files) {
+      if (file.getNameSequence().length() > length) {
+        result = file;
+        length = file.getNameSequence().length();
+      }
+    }
+    return result;
+  }
+
+  /**
+   * Builds the snapshots of the first {@code rows} rows ahead of painting them.
+   */
+  public void prefetchSnapshots(int rows) {
+    for (int row = Math.min(rows, getSize()) - 1; row >= 0; row--) {
+      getSnapshot(row);
+    }
+  }
+
+  private int toFileIndex(int index) {
+    return view != null ? view[index] : index;
+  }
+
+  private int toRow(int fileIndex) {
+    if (view == null) return fileIndex;
+    for (int row = 0; row < viewSize; row++) {
+      if (view[row] == fileIndex) return row;
+    }
+    return -1;
+  }
+
+  /**
+   * Drops the snapshot of {@code file}, if shown, and repaints its row.
+   */
+  void invalidate(VirtualFile file) {
+    invalidate(file, false);
+  }
+
+  /**
+   * Like {@link #invalidate(VirtualFile)}, but keeps snapshots that already show {@code file} as modified. Used for
+   * document changes, which arrive on every keystroke.
+   */
+  void invalidateUnlessModified(VirtualFile file) {
+    invalidate(file, true);
+  }
+
+  private void invalidate(VirtualFile file, boolean keepModified) {
+    Integer index = snapshotIndices.get(file);
+    if (index != null && !(keepModified && snapshots[index].modified)) {
+      snapshots[index] = null;
+      snapshotIndices.remove(file);
+      int row = toRow(index);
+      if (row >= 0) {
+        fireContentsChanged(this, row, row);
+      }
+    }
+    index = extraSnapshotIndices.get(file);
+    if (index != null && !(keepModified && extraSnapshots[index].modified)) {
+      extraSnapshots[index] = null;
+      extraSnapshotIndices.remove(file);
+      fireContentsChanged(this, getFileRows() + index, getFileRows() + index);
+    }
+  }
+
+  /**
+   * Drops all snapshots, e.g. when the file statuses of the whole project changed.
+   */
+  void invalidateAll() {
+    if (snapshots.length == 0 && extraSnapshots.length == 0) return;
+    snapshots = new FileRenderSnapshot[snapshots.length];
+    extraSnapshots = new FileRenderSnapshot[extraSnapshots.length];
+    snapshotIndices.clear();
+    extraSnapshotIndices.clear();
+    if (getSize() > 0) {
+      fireContentsChanged(this, 0, getSize() - 1);
+    }
+  }
+}
@@ -0,0 +1,44 @@
+package org.intellij.ideaplugins.tabswitchx.component;
+
+import java.awt.Color;
+import java.awt.Font;
+
+import javax.swing.Icon;
+
+import com.intellij.openapi.editor.markup.EffectType;
+import com.intellij.openapi.editor.markup.TextAttributes;
+import com.intellij.openapi.fileEditor.FileDocumentManager;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.vcs.FileStatusManager;
+import com.intellij.openapi.vfs.VirtualFile;
+import com.intellij.ui.SimpleTextAttributes;
+
+/**
+ * Everything the cell renderer needs to paint one file, computed once so that painting a cell does not query the
+ * icon providers, the document manager or the file status manager. Icons come from the {@link FileIconCache}.
+ */
+final class FileRenderSnapshot {
+
+  final Icon icon;
+  final boolean modified;
+  final String text;
+  final SimpleTextAttributes attributes;
+
+  FileRenderSnapshot(Icon icon, boolean modified, String name, Color color) {
+    this.icon = icon;
+    this.modified = modified;
+    this.text = (modified ? "*" : "") + name;
+    this.attributes = SimpleTextAttributes.fromTextAttributes(new TextAttributes(color,
+                                                                                 null,
+                                                                                 null,
+                                                                                 EffectType.LINE_UNDERSCORE,
+                                                                                 Font.PLAIN));
+  }
+
+  static FileRenderSnapshot create(Project project, VirtualFile file) {
+    return new FileRenderSnapshot(FileIconCache.getInstance(project).getIcon(file),
+                                  FileDocumentManager.getInstance().isFileModified(file),
+                                  file.getName(),
+                                  FileStatusManager.getInstance(project).getStatus(file).getColor());
+  }
+}
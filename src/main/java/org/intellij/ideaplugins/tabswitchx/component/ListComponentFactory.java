@@ -1,29 +1,38 @@
 package org.intellij.ideaplugins.tabswitchx.component;
 
 import java.awt.*;
+import java.awt.event.ActionEvent;
+import java.awt.event.ActionListener;
 import java.awt.event.MouseAdapter;
 import java.awt.event.MouseEvent;
 import java.awt.event.MouseWheelEvent;
-import java.io.File;
+import java.util.List;
 
 import javax.swing.*;
+import javax.swing.event.ListDataEvent;
+import javax.swing.event.ListDataListener;
 import javax.swing.event.ListSelectionEvent;
 import javax.swing.event.ListSelectionListener;
 
 import org.intellij.ideaplugins.tabswitchx.TabSwitchProjectComponent;
+import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
-import com.intellij.openapi.editor.markup.EffectType;
-import com.intellij.openapi.editor.markup.TextAttributes;
+import com.intellij.AppTopics;
+import com.intellij.openapi.application.ApplicationManager;
+import com.intellij.openapi.editor.Document;
+import com.intellij.openapi.editor.EditorFactory;
+import com.intellij.openapi.editor.event.DocumentEvent;
+import com.intellij.openapi.editor.event.DocumentListener;
 import com.intellij.openapi.fileEditor.FileDocumentManager;
+import com.intellij.openapi.fileEditor.FileDocumentManagerListener;
 import com.intellij.openapi.project.Project;
-import com.intellij.openapi.util.Iconable;
+import com.intellij.openapi.vcs.FileStatusListener;
 import com.intellij.openapi.vcs.FileStatusManager;
 import com.intellij.openapi.vfs.VirtualFile;
 import com.intellij.ui.ColoredListCellRenderer;
-import com.intellij.ui.SimpleTextAttributes;
 import com.intellij.ui.components.JBList;
-import com.intellij.util.IconUtil;
+import com.intellij.util.ui.UIUtil;
 
 class ListComponentFactory {
 
@@ -34,8 +43,11 @@ class ListComponentFactory {
   }
 
   public JList create(JLabel pathLabel) {
-    JList list = new JBList();
+    FileListModel model = new FileListModel(file -> FileRenderSnapshot.create(project, file));
+    JList list = new JBList(model);
     list.setCellRenderer(new ListCellRendererWithColorFactory().create(project));
+    subscribeToSnapshotInvalidation(model);
+    model.addListDataListener(new PrototypeCellSizer(list, model));
     list.getSelectionModel().setSelectionMode(ListSelectionModel.SINGLE_SELECTION);
     list.getSelectionModel().addListSelectionListener(new ListSelectionListenerWithPathUpdaterFactory().create(list, pathLabel));
     // list.addMouseListener(new ListMouseListener(list));
@@ -48,11 +60,150 @@ class ListComponentFactory {
     return list;
   }
 
+  /**
+   * Keeps the render snapshots of the model in line with file status and document changes.
+   */
+  private void subscribeToSnapshotInvalidation(final FileListModel model) {
+    FileStatusManager.getInstance(project).addFileStatusListener(new FileStatusListener() {
+      @Override
+      public void fileStatusesChanged() {
+        UIUtil.invokeLaterIfNeeded(model::invalidateAll);
+      }
+
+      @Override
+      public void fileStatusChanged(@NotNull VirtualFile file) {
+        UIUtil.invokeLaterIfNeeded(() -> model.invalidate(file));
+      }
+    }, project);
+    ApplicationManager.getApplication().getMessageBus().connect(project).subscribe(AppTopics.FILE_DOCUMENT_SYNC, new FileDocumentManagerListener() {
+      @Override
+      public void beforeDocumentSaving(@NotNull Document document) {
+        invalidate(document);
+      }
+
+      @Override
+      public void fileContentReloaded(@NotNull VirtualFile file, @NotNull Document document) {
+        UIUtil.invokeLaterIfNeeded(() -> model.invalidate(file));
+      }
+
+      @Override
+      public void unsavedDocumentsDropped() {
+        UIUtil.invokeLaterIfNeeded(model::invalidateAll);
+      }
+
+      private void invalidate(Document document) {
+        VirtualFile file = FileDocumentManager.getInstance().getFile(document);
+        if (file != null) {
+          UIUtil.invokeLaterIfNeeded(() -> model.invalidate(file));
+        }
+      }
+    });
+    EditorFactory.getInstance().getEventMulticaster().addDocumentListener(new DocumentListener() {
+      @Override
+      public void documentChanged(@NotNull DocumentEvent event) {
+        VirtualFile file = FileDocumentManager.getInstance().getFile(event.getDocument());
+        if (file != null) {
+          UIUtil.invokeLaterIfNeeded(() -> model.invalidateUnlessModified(file));
+        }
+      }
+    }, project);
+  }
+
+  /**
+   * Gives the list a fixed cell height and width whenever the model gets new files. The height and the space around
+   * the name, like the icon and the insets, come from rendering only the file with the longest name. The width of the
+   * names is measured for every file, extra files included, as with a proportional font the longest name need not be
+   * the widest. Without fixed sizes the list UI renders every row to lay itself out, which is what made the popup slow
+   * to open with thousands of tabs.
+   */
+  private static class PrototypeCellSizer implements ListDataListener {
+    private final JList list;
+    private final FileListModel model;
+    private List<VirtualFile> sizedFiles;
+    private List<VirtualFile> sizedExtraFiles;
+    // advances of the chars below 256 in widthsFont, so that measuring a name is a table lookup per char
+    private final int[] charWidths = new int[256];
+    private Font widthsFont;
+
+    PrototypeCellSizer(JList list, FileListModel model) {
+      this.list = list;
+      this.model = model;
+    }
+
+    @Override
+    public void intervalAdded(ListDataEvent event) {
+      update();
+    }
+
+    @Override
+    public void intervalRemoved(ListDataEvent event) {
+      update();
+    }
+
+    @Override
+    public void contentsChanged(ListDataEvent event) {
+      update();
+    }
+
+    private void update() {
+      // filtering and snapshot invalidation keep the files, and so the cell size
+      if (model.getFiles() == sizedFiles && model.getExtraFiles() == sizedExtraFiles) return;
+      sizedFiles = model.getFiles();
+      sizedExtraFiles = model.getExtraFiles();
+      VirtualFile prototype = model.getPrototypeFile();
+      if (prototype == null) return;
+      list.setPrototypeCellValue(prototype);
+      FontMetrics metrics = list.getFontMetrics(list.getFont());
+      int prototypeTextWidth = textWidth(prototype, metrics);
+      if (FileDocumentManager.getInstance().isFileModified(prototype)) {
+        prototypeTextWidth += metrics.charWidth('*');
+      }
+      int textWidth = Math.max(maxTextWidth(sizedFiles, metrics), maxTextWidth(sizedExtraFiles, metrics));
+      // any file may be painted with the modification mark
+      list.setFixedCellWidth(list.getFixedCellWidth() - prototypeTextWidth + textWidth + metrics.charWidth('*'));
+    }
+
+    private int maxTextWidth(List<VirtualFile> files, FontMetrics metrics) {
+      int result = 0;
+      for (VirtualFile file : files) {
+        result = Math.max(result, textWidth(file, metrics));
+      }
+      return result;
+    }
+
+    private int textWidth(VirtualFile file, FontMetrics metrics) {
+      if (!metrics.getFont().equals(widthsFont)) {
+        widthsFont = metrics.getFont();
+        for (char ch = 0; ch < charWidths.length; ch++) {
+          charWidths[ch] = metrics.charWidth(ch);
+        }
+      }
+      CharSequence name = file.getNameSequence();
+      int width = 0;
+      for (int i = 0; i < name.length(); i++) {
+        char ch = name.charAt(i);
+        if (ch >= charWidths.length) return metrics.stringWidth(name.toString());
+        width += charWidths[ch];
+      }
+      return width;
+    }
+  }
+
   private class ListMouseListener extends MouseAdapter {
     private final JList list;
+    private final Timer scrollTimer;
+    private double pendingPixels;
 
     public ListMouseListener(JList list) {
       this.list = list;
+      // wheel events only accumulate, the viewport moves at most once per frame
+      this.scrollTimer = new Timer(16, new ActionListener() {
+        @Override
+        public void actionPerformed(ActionEvent event) {
+          applyPendingScroll();
+        }
+      });
+      this.scrollTimer.setRepeats(false);
     }
 
     @Override
@@ -67,68 +218,34 @@ class ListComponentFactory {
 
     @Override
     public void mouseWheelMoved(MouseWheelEvent e) {
-      // System.out.println("mouseWheelMoved(): Called with event: " +  e.getID());
-       String message;
-       String newline = "\n";
-       final JBList scrollPane = (JBList) list;
-       int notches = e.getWheelRotation();
-       scrollPane.getScrollableUnitIncrement(scrollPane.getVisibleRect(), SwingConstants.VERTICAL, 1);
-       // if (notches < 0) {
-       //     message = "Mouse wheel moved UP "
-       //                  + -notches + " notch(es)" + newline;
-       // } else {
-       //     message = "Mouse wheel moved DOWN "
-       //                  + notches + " notch(es)" + newline;
-       // }
-       // System.out.println("Notches: " + notches);
-       int unitPixels = scrollPane.getScrollableUnitIncrement(scrollPane.getVisibleRect(), SwingConstants.VERTICAL, notches);
-       int blocksToScroll = scrollPane.getScrollableBlockIncrement(scrollPane.getVisibleRect(), SwingConstants.VERTICAL, 1);
-       Rectangle visibleRect = scrollPane.getVisibleRect();
-       int pixelsToScroll = notches * unitPixels;
-
-       if (e.getScrollType() == MouseWheelEvent.WHEEL_UNIT_SCROLL) {
-         // System.out.println("UNIT_SCROLL: Should scroll by " + pixelsToScroll + " px");
-         visibleRect.add(0, pixelsToScroll);
-         // scrollPane.getVisibleRect().add(0, unitsToScroll);
-         int first = scrollPane.getFirstVisibleIndex();
-         int last = scrollPane.getLastVisibleIndex();
-         int length = scrollPane.getItemsCount();
-         int newFirst = first + notches;
-         int newLast = last + notches;
-         if(newFirst < 0) {
-           newFirst = 0;
-         }
-         if(newLast > length - 1) {
-           newLast = length - 1;
-         }
-         scrollPane.ensureIndexIsVisible(newFirst);
-         scrollPane.ensureIndexIsVisible(newLast);
-         // System.out.println("New scroll bounds are indexes " + newFirst + " - " + newLast);
-         // if(newFirst > length - 1) {
-         //   new
-         // }
-         // if(unitsToScroll)
-
-           // message += "    Scroll type: WHEEL_UNIT_SCROLL" + newline;
-           // message += "    Scroll amount: " + e.getScrollAmount()
-           //         + " unit increments per notch" + newline;
-           // message += "    Units to scroll: " + e.getUnitsToScroll()
-           //         + " unit increments" + newline;
-           // message += "    Vertical unit increment: "
-           //     + scrollPane.getScrollableUnitIncrement(scrollPane.getVisibleRect(), SwingConstants.VERTICAL, 1)
-           //     + " pixels" + newline;
-       } else { //scroll type == MouseWheelEvent.WHEEL_BLOCK_SCROLL
-         // System.out.println("BLOCK_SCROLL: Should scroll by " + blocksToScroll + " px");
-           // message += "    Scroll type: WHEEL_BLOCK_SCROLL" + newline;
-           // message += "    Vertical block increment: "
-           //     + scrollPane.getScrollableBlockIncrement(scrollPane.getVisibleRect(), SwingConstants.VERTICAL, 1)
-           //     + " pixels" + newline;
-       }
-       // saySomething(message, e);
-      // System.out.println(message);
-       // final Rectangle newRect =
-       // scrollPane.scrollRectToVisible();
+      double rotation = e.getPreciseWheelRotation();
+      int direction = rotation < 0 ? -1 : 1;
+      Rectangle visibleRect = list.getVisibleRect();
+      if (e.getScrollType() == MouseWheelEvent.WHEEL_UNIT_SCROLL) {
+        int unitPixels = list.getScrollableUnitIncrement(visibleRect, SwingConstants.VERTICAL, direction);
+        pendingPixels += rotation * e.getScrollAmount() * unitPixels;
+      } else { //scroll type == MouseWheelEvent.WHEEL_BLOCK_SCROLL
+        int blockPixels = list.getScrollableBlockIncrement(visibleRect, SwingConstants.VERTICAL, direction);
+        pendingPixels += rotation * blockPixels;
+      }
+      e.consume();
+      if (!scrollTimer.isRunning()) {
+        scrollTimer.start();
+      }
+    }
 
+    private void applyPendingScroll() {
+      int pixels = (int) pendingPixels;
+      if (pixels == 0 || !(list.getParent() instanceof JViewport)) return;
+      JViewport viewport = (JViewport) list.getParent();
+      Point position = viewport.getViewPosition();
+      int maxY = Math.max(0, list.getHeight() - viewport.getExtentSize().height);
+      int y = Math.max(0, Math.min(maxY, position.y + pixels));
+      // keep the fraction for the next frame, but do not build up scrolling beyond the ends of the list
+      pendingPixels = y == position.y + pixels ? pendingPixels - pixels : 0;
+      if (y != position.y) {
+        viewport.setViewPosition(new Point(position.x, y));
+      }
     }
 
   }
@@ -136,9 +253,9 @@ class ListComponentFactory {
   /**
    * Simple ListCellRenderer factory. This is the default one to render the popped up list.
    */
-  private static class ListCellRendererWithColorFactory {
+  static class ListCellRendererWithColorFactory {
 
-    private ListCellRendererWithColorFactory() {
+    ListCellRendererWithColorFactory() {
     }
 
     ListCellRenderer create(final Project project) {
@@ -149,66 +266,69 @@ class ListComponentFactory {
                                              int index,
                                              boolean selected,
                                              boolean hasFocus) {
-          setIcon(IconUtil.getIcon(file, Iconable.ICON_FLAG_READ_STATUS, project));
-		  boolean isModified = FileDocumentManager.getInstance().isFileModified(file);
-		  // String status = isModified ? "(*) " : "";
-		  String status = isModified ? "*" : "";
-          append(status + file.getName(), SimpleTextAttributes.fromTextAttributes(new TextAttributes(getForegroundColor(file, project),
-                                                                                            null,
-                                                                                            null,
-                                                                                            EffectType.LINE_UNDERSCORE,
-                                                                                            Font.PLAIN)));
+          FileRenderSnapshot snapshot = getSnapshot(list, file, index, project);
+          setIcon(snapshot.icon);
+          append(snapshot.text, snapshot.attributes);
         }
       };
     }
 
-    private Color getForegroundColor(VirtualFile file, Project project) {
-      return FileStatusManager.getInstance(project).getStatus(file).getColor();
+    /**
+     * Reads the precomputed snapshot of the row. Values that are not rows of a {@link FileListModel}, like a
+     * prototype cell value, are computed on the spot.
+     */
+    private FileRenderSnapshot getSnapshot(JList list, VirtualFile file, int index, Project project) {
+      ListModel model = list.getModel();
+      if (model instanceof FileListModel && index >= 0 && index < model.getSize() && model.getElementAt(index) == file) {
+        return ((FileListModel) model).getSnapshot(index);
+      }
+      return FileRenderSnapshot.create(project, file);
     }
   }
 
-  private static class ListSelectionListenerWithPathUpdaterFactory {
+  static class ListSelectionListenerWithPathUpdaterFactory {
 
-    private ListSelectionListenerWithPathUpdaterFactory() {
+    /**
+     * Selection changes arriving faster than this, e.g. while Tab auto-repeats, update the path label only once.
+     */
+    private static final int FRAME_MILLIS = 16;
+
+    private final PathTextFitter pathTextFitter = new PathTextFitter();
+
+    ListSelectionListenerWithPathUpdaterFactory() {
     }
 
     ListSelectionListener create(final JList list, final JLabel pathLabel) {
+      // one reusable update task; a pending update absorbs every selection change until it runs
+      final Timer pathUpdate = new Timer(FRAME_MILLIS, new ActionListener() {
+        @Override
+        public void actionPerformed(ActionEvent event) {
+          updatePath(list, pathLabel);
+        }
+      });
+      pathUpdate.setRepeats(false);
       return new ListSelectionListener() {
         @Override
         public void valueChanged(ListSelectionEvent event) {
-          SwingUtilities.invokeLater(new Runnable() {
-            @Override
-            public void run() {
-              updatePath(list, pathLabel);
-            }
-          });
+          if (!event.getValueIsAdjusting() && !pathUpdate.isRunning()) {
+            pathUpdate.start();
+          }
         }
       };
     }
 
     private void updatePath(JList list, JLabel path) {
       // path.setText(getPathTextOrEmptyString(path, list.getSelectedValues()));
-      path.setText(getPathTextOrEmptyString(path, list.getSelectedValuesList().toArray()));
+      path.setText(getPathTextOrEmptyString(path, (VirtualFile) list.getSelectedValue()));
     }
 
-    private String getPathTextOrEmptyString(JLabel path, Object[] selectedValues) {
-      return onlyOneFileIsSelected(selectedValues)
-             ? getPathTextForSelectedFile(path, ((VirtualFile) selectedValues[0]).getParent())
-             : "";
+    private String getPathTextOrEmptyString(JLabel path, @Nullable VirtualFile selectedFile) {
+      return selectedFile != null ? getPathTextForSelectedFile(path, selectedFile.getParent()) : "";
     }
 
-    private boolean onlyOneFileIsSelected(Object[] selectedValues) {
-      return selectedValues != null && selectedValues.length == 1;
-    }
-
-    private String getPathTextForSelectedFile(JLabel path, @Nullable VirtualFile parent) {
+    String getPathTextForSelectedFile(JLabel path, @Nullable VirtualFile parent) {
       if (parent == null) return "";
-      String text = parent.getPresentableUrl();
-      FontMetrics fontMetrics = path.getFontMetrics(path.getFont());
-      while ((fontMetrics.stringWidth(text) > path.getWidth()) && (text.indexOf(File.separatorChar, 4) > 0)) {
-        text = "..." + text.substring(text.indexOf(File.separatorChar, 4));
-      }
-      return text;
+      return pathTextFitter.fit(parent.getPresentableUrl(), path.getWidth(), path.getFontMetrics(path.getFont()));
     }
   }
 }
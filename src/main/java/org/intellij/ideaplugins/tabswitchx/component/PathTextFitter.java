@@ -0,0 +1,104 @@
+package org.intellij.ideaplugins.tabswitchx.component;
+
+import java.awt.Font;
+import java.awt.FontMetrics;
+import java.io.File;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Shortens a path to fit a width by replacing its leading directories with "...", keeping as many trailing
+ * directories as fit. Candidates are probed by binary search over the separator offsets, and results are remembered
+ * in a small LRU cache keyed by path, width and font, so cycling through the same tabs does not measure text again.
+ */
+class PathTextFitter {
+
+  private static final String ELLIPSIS = "...";
+  private static final int CACHE_SIZE = 256;
+
+  private final Map<Key, String> cache = new LinkedHashMap<Key, String>(CACHE_SIZE, 0.75f, true) {
+    @Override
+    protected boolean removeEldestEntry(Map.Entry<Key, String> eldest) {
+      return size() > CACHE_SIZE;
+    }
+  };
+
+  /**
+   * @return {@code path} if it fits, else "..." followed by the longest separator-started suffix that fits, or by the
+   * last directory if none does.
+   */
+  String fit(String path, int width, FontMetrics fontMetrics) {
+    Key key = new Key(path, width, fontMetrics.getFont());
+    String text = cache.get(key);
+    if (text == null) {
+      text = computeFit(path, width, fontMetrics);
+      cache.put(key, text);
+    }
+    return text;
+  }
+
+  private static String computeFit(String path, int width, FontMetrics fontMetrics) {
+    if (fontMetrics.stringWidth(path) <= width) return path;
+    int[] separators = separatorOffsets(path);
+    if (separators.length == 0) return path;
+    // candidates get shorter with every separator, so the first one that fits is found by binary search
+    int low = 0;
+    int high = separators.length - 1;
+    while (low < high) {
+      int middle = (low + high) >>> 1;
+      if (fontMetrics.stringWidth(candidate(path, separators[middle])) <= width) {
+        high = middle;
+      } else {
+        low = middle + 1;
+      }
+    }
+    return candidate(path, separators[low]);
+  }
+
+  private static String candidate(String path, int separator) {
+    return ELLIPSIS + path.substring(separator);
+  }
+
+  /**
+   * @return offsets of the separators that may start a shortened path, skipping the first four characters so that a
+   * root like "C:\" or "//" is never the only thing left.
+   */
+  private static int[] separatorOffsets(String path) {
+    int count = 0;
+    for (int i = path.indexOf(File.separatorChar, 4); i >= 0; i = path.indexOf(File.separatorChar, i + 1)) {
+      count++;
+    }
+    int[] offsets = new int[count];
+    count = 0;
+    for (int i = path.indexOf(File.separatorChar, 4); i >= 0; i = path.indexOf(File.separatorChar, i + 1)) {
+      offsets[count++] = i;
+    }
+    return offsets;
+  }
+
+  private static final class Key {
+    private final String path;
+    private final int width;
+    private final Font font;
+
+    private Key(String path, int width, Font font) {
+      this.path = path;
+      this.width = width;
+      this.font = font;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) return true;
+      if (!(o instanceof Key)) return false;
+      Key key = (Key) o;
+      return width == key.width && path.equals(key.path) && Objects.equals(font, key.font);
+    }
+
+    @Override
+    public int hashCode() {
+      return 31 * (31 * path.hashCode() + width) + Objects.hashCode(font);
+    }
+  }
+}
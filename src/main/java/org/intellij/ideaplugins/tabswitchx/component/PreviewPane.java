@@ -0,0 +1,242 @@
+package org.intellij.ideaplugins.tabswitchx.component;
+
+import java.awt.BorderLayout;
+import java.awt.Color;
+import java.awt.Font;
+import java.awt.event.ActionEvent;
+import java.awt.event.ActionListener;
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import javax.swing.JList;
+import javax.swing.JPanel;
+import javax.swing.JTextPane;
+import javax.swing.Timer;
+import javax.swing.text.BadLocationException;
+import javax.swing.text.DefaultStyledDocument;
+import javax.swing.text.SimpleAttributeSet;
+import javax.swing.text.StyleConstants;
+import javax.swing.text.StyledDocument;
+
+import org.jetbrains.concurrency.CancellablePromise;
+
+import com.intellij.lexer.Lexer;
+import com.intellij.openapi.application.ModalityState;
+import com.intellij.openapi.application.ReadAction;
+import com.intellij.openapi.diagnostic.Logger;
+import com.intellij.openapi.editor.Document;
+import com.intellij.openapi.editor.colors.EditorColorsManager;
+import com.intellij.openapi.editor.colors.EditorColorsScheme;
+import com.intellij.openapi.editor.colors.TextAttributesKey;
+import com.intellij.openapi.editor.markup.TextAttributes;
+import com.intellij.openapi.fileEditor.FileDocumentManager;
+import com.intellij.openapi.fileTypes.SyntaxHighlighter;
+import com.intellij.openapi.fileTypes.SyntaxHighlighterFactory;
+import com.intellij.openapi.progress.ProgressManager;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.vfs.VfsUtilCore;
+import com.intellij.openapi.vfs.VirtualFile;
+import com.intellij.ui.components.JBScrollPane;
+import com.intellij.util.concurrency.AppExecutorUtil;
+import com.intellij.util.ui.JBUI;
+
+/**
+ * Shows the first lines of the file selected in the switcher list, highlighted by the lexer of its file type.
+ * <p>
+ * Selection changes are debounced, and a snippet is read and highlighted in a non-blocking read action on a pooled
+ * thread. Loads for files no longer selected are cancelled, and their results dropped. Highlighted snippets are kept in
+ * a cache bounded by the number of characters it holds, keyed by the file and its modification stamp.
+ */
+class PreviewPane extends JPanel {
+
+  private static final Logger LOG = Logger.getInstance(PreviewPane.class);
+
+  private static final int DEBOUNCE_MILLIS = 120;
+  private static final int MAX_LINES = 40;
+  private static final int MAX_CHARS = 4000;
+  private static final int CACHE_CHARS = 256 * 1024;
+
+  private final Project project;
+  private final JList list;
+  private final JTextPane textPane = new JTextPane();
+  private final StyledDocument emptyDocument = new DefaultStyledDocument();
+  private final Timer loadTimer;
+
+  private final Map<Key, StyledDocument> cache = new LinkedHashMap<>(16, 0.75f, true);
+  private int cachedChars;
+
+  private CancellablePromise<StyledDocument> pendingLoad;
+
+  PreviewPane(Project project, JList list) {
+    super(new BorderLayout());
+    this.project = project;
+    this.list = list;
+    textPane.setEditable(false);
+    textPane.setFocusable(false);
+    textPane.setBorder(JBUI.Borders.empty(4));
+    add(new JBScrollPane(textPane), BorderLayout.CENTER);
+    setPreferredSize(JBUI.size(480, 320));
+
+    // one reusable load task; a pending load absorbs every selection change until it runs
+    loadTimer = new Timer(DEBOUNCE_MILLIS, new ActionListener() {
+      @Override
+      public void actionPerformed(ActionEvent event) {
+        showSelectedFile();
+      }
+    });
+    loadTimer.setRepeats(false);
+    list.getSelectionModel().addListSelectionListener(event -> {
+      if (!event.getValueIsAdjusting()) {
+        cancelPendingLoad();
+        loadTimer.restart();
+      }
+    });
+  }
+
+  private void showSelectedFile() {
+    VirtualFile file = (VirtualFile) list.getSelectedValue();
+    // the pane exists even while the preview is switched off, but then it never shows
+    if (!isShowing()) return;
+    if (file == null || !file.isValid() || file.isDirectory() || file.getFileType().isBinary()) {
+      show(emptyDocument);
+      return;
+    }
+    // unsaved changes only show in the modification stamp of the document
+    Document fileDocument = FileDocumentManager.getInstance().getCachedDocument(file);
+    Key key = new Key(file, fileDocument != null ? fileDocument.getModificationStamp() : file.getModificationStamp());
+    StyledDocument cached = cache.get(key);
+    if (cached != null) {
+      show(cached);
+      return;
+    }
+    EditorColorsScheme scheme = EditorColorsManager.getInstance().getGlobalScheme();
+    pendingLoad = ReadAction.nonBlocking(() -> createSnippet(file, scheme))
+      .expireWith(project)
+      .finishOnUiThread(ModalityState.any(), document -> {
+        pendingLoad = null;
+        if (document != null && file.equals(list.getSelectedValue())) {
+          putInCache(key, document);
+          show(document);
+        }
+      })
+      .submit(AppExecutorUtil.getAppExecutorService());
+  }
+
+  private void show(StyledDocument document) {
+    textPane.setDocument(document);
+    textPane.setCaretPosition(0);
+  }
+
+  private void cancelPendingLoad() {
+    if (pendingLoad != null) {
+      pendingLoad.cancel();
+      pendingLoad = null;
+    }
+  }
+
+  private void putInCache(Key key, StyledDocument document) {
+    cache.put(key, document);
+    cachedChars += document.getLength();
+    for (Iterator<StyledDocument> iterator = cache.values().iterator(); cachedChars > CACHE_CHARS && iterator.hasNext(); ) {
+      cachedChars -= iterator.next().getLength();
+      iterator.remove();
+    }
+  }
+
+  /**
+   * Runs in a read action off the EDT. The document is not attached to any component yet, so it may be built here.
+   */
+  private StyledDocument createSnippet(VirtualFile file, EditorColorsScheme scheme) {
+    CharSequence text = loadText(file);
+    if (text == null) return null;
+    DefaultStyledDocument document = new DefaultStyledDocument();
+    SimpleAttributeSet plain = new SimpleAttributeSet();
+    StyleConstants.setFontFamily(plain, scheme.getEditorFontName());
+    StyleConstants.setFontSize(plain, scheme.getEditorFontSize());
+    try {
+      SyntaxHighlighter highlighter = SyntaxHighlighterFactory.getSyntaxHighlighter(file.getFileType(), project, file);
+      if (highlighter == null) {
+        document.insertString(0, text.toString(), plain);
+        return document;
+      }
+      Lexer lexer = highlighter.getHighlightingLexer();
+      lexer.start(text);
+      while (lexer.getTokenType() != null) {
+        ProgressManager.checkCanceled();
+        String token = text.subSequence(lexer.getTokenStart(), lexer.getTokenEnd()).toString();
+        document.insertString(document.getLength(), token, toAttributes(highlighter.getTokenHighlights(lexer.getTokenType()), scheme, plain));
+        lexer.advance();
+      }
+    } catch (BadLocationException e) {
+      LOG.error(e);
+    }
+    return document;
+  }
+
+  private static SimpleAttributeSet toAttributes(TextAttributesKey[] keys, EditorColorsScheme scheme, SimpleAttributeSet plain) {
+    SimpleAttributeSet result = new SimpleAttributeSet(plain);
+    for (TextAttributesKey key : keys) {
+      TextAttributes attributes = scheme.getAttributes(key);
+      if (attributes == null) continue;
+      Color foreground = attributes.getForegroundColor();
+      if (foreground != null) {
+        StyleConstants.setForeground(result, foreground);
+      }
+      StyleConstants.setBold(result, (attributes.getFontType() & Font.BOLD) != 0);
+      StyleConstants.setItalic(result, (attributes.getFontType() & Font.ITALIC) != 0);
+    }
+    return result;
+  }
+
+  /**
+   * @return the first {@link #MAX_LINES} lines of the file, from its document if one is loaded, or {@code null}.
+   */
+  private static CharSequence loadText(VirtualFile file) {
+    Document document = FileDocumentManager.getInstance().getCachedDocument(file);
+    CharSequence text;
+    if (document != null) {
+      text = document.getImmutableCharSequence();
+    } else {
+      try {
+        text = VfsUtilCore.loadText(file, MAX_CHARS);
+      } catch (IOException e) {
+        LOG.debug("Cannot preview " + file, e);
+        return null;
+      }
+    }
+    int end = Math.min(text.length(), MAX_CHARS);
+    int lines = 0;
+    for (int i = 0; i < end; i++) {
+      if (text.charAt(i) == '\n' && ++lines == MAX_LINES) {
+        end = i;
+        break;
+      }
+    }
+    return text.subSequence(0, end);
+  }
+
+  private static final class Key {
+    private final VirtualFile file;
+    private final long modificationStamp;
+
+    private Key(VirtualFile file, long modificationStamp) {
+      this.file = file;
+      this.modificationStamp = modificationStamp;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) return true;
+      if (!(o instanceof Key)) return false;
+      Key key = (Key) o;
+      return modificationStamp == key.modificationStamp && file.equals(key.file);
+    }
+
+    @Override
+    public int hashCode() {
+      return 31 * file.hashCode() + Long.hashCode(modificationStamp);
+    }
+  }
+}
@@ -1,21 +1,17 @@
 package org.intellij.ideaplugins.tabswitchx.filefetcher;
 
-import java.util.ArrayList;
-import java.util.Collection;
-import java.util.Collections;
-import java.util.Comparator;
 import java.util.List;
 
+import org.intellij.ideaplugins.tabswitchx.vcs.VcsChangeIndex;
+import org.jetbrains.concurrency.CancellablePromise;
+
 import com.intellij.ide.ui.UISettings;
 import com.intellij.openapi.project.Project;
-import com.intellij.openapi.vcs.changes.Change;
-import com.intellij.openapi.vcs.changes.ChangeListManager;
-import com.intellij.openapi.vcs.changes.LocalChangeList;
 import com.intellij.openapi.vfs.VirtualFile;
 
 /**
  * Creates a list of {@link VirtualFile} by fetching all the modified files that are in the default change list of
- * chosen VCS.
+ * chosen VCS, or in all change lists if so configured.
  * <pre>
  * User: must
  * Date: 2012-06-02
@@ -23,46 +19,43 @@ import com.intellij.openapi.vfs.VirtualFile;
  */
 public class ChangedFilesInVcsFileFetcher implements FileFetcher<VirtualFile> {
 
-  private static final Comparator<VirtualFile> VIRTUAL_FILE_NAME_COMPARATOR = new Comparator<VirtualFile>() {
-    @Override
-    public int compare(VirtualFile vf1, VirtualFile vf2) {
-      return vf1.getName().compareToIgnoreCase(vf2.getName());
-    }
-  };
-
   /**
    * @param project an idea project.
    *
-   * @return Not {@code null}. Alphabetically sorted list of modified files.
+   * @return Not {@code null}. Alphabetically sorted list of modified files, served from the {@link VcsChangeIndex}.
    */
   @Override
   public List<VirtualFile> getFiles(Project project) {
-    List<VirtualFile> changedFiles = new ArrayList<>();
     // int editorTabLimit = UISettings.getInstance().EDITOR_TAB_LIMIT;
     int editorTabLimit = UISettings.getInstance().getEditorTabLimit();
-    int i = 0;
-    for (Change change : getChanges(project)) {
-      VirtualFile virtualFile = change.getVirtualFile();
-      if (possibleToListVirtualFile(virtualFile)) {
-        changedFiles.add(virtualFile);
-        if (i++ == editorTabLimit) break;
-      }
-    }
-    Collections.sort(changedFiles, VIRTUAL_FILE_NAME_COMPARATOR);
-    return changedFiles;
+    return VcsChangeIndex.getInstance(project).getFiles(editorTabLimit + 1);
   }
 
   /**
-   * @param project an idea project.
-   *
-   * @return {@code null} if no change list is available or if there are no changes currently made.
+   * @return Not {@code null}. The files of the last update of the {@link VcsChangeIndex}, without waiting for the
+   * first one.
    */
-  private Collection<Change> getChanges(Project project) {
-    LocalChangeList defaultChangeList = ChangeListManager.getInstance(project).getDefaultChangeList();
-    return defaultChangeList != null ? defaultChangeList.getChanges() : Collections.<Change>emptyList();
+  @Override
+  public List<VirtualFile> getCachedFiles(Project project) {
+    int editorTabLimit = UISettings.getInstance().getEditorTabLimit();
+    return VcsChangeIndex.getInstance(project).getCachedFiles(editorTabLimit + 1);
   }
 
-  private boolean possibleToListVirtualFile(VirtualFile virtualFile) {
-    return virtualFile != null && !virtualFile.isDirectory();
+  /**
+   * @return whether the {@link VcsChangeIndex} has not caught up with the change list manager yet.
+   */
+  @Override
+  public boolean isStale(Project project) {
+    return !VcsChangeIndex.getInstance(project).isUpToDate();
+  }
+
+  /**
+   * @return promise of the files of the {@link VcsChangeIndex} once it caught up with the pending update of the change
+   * list manager.
+   */
+  @Override
+  public CancellablePromise<List<VirtualFile>> getFilesAsync(Project project) {
+    int editorTabLimit = UISettings.getInstance().getEditorTabLimit();
+    return VcsChangeIndex.getInstance(project).getFilesAfterUpdate(editorTabLimit + 1);
   }
 }
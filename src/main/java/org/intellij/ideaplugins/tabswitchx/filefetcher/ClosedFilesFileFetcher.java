@@ -0,0 +1,24 @@
+package org.intellij.ideaplugins.tabswitchx.filefetcher;
+
+import java.util.List;
+
+import org.intellij.ideaplugins.tabswitchx.mru.ClosedFilesIndex;
+
+import com.intellij.ide.ui.UISettings;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.vfs.VirtualFile;
+
+public class ClosedFilesFileFetcher implements FileFetcher<VirtualFile> {
+
+  /**
+   * @param project an idea project.
+   *
+   * @return Not {@code null}. Recently closed files, most recently closed first, served from the
+   * {@link ClosedFilesIndex}.
+   */
+  @Override
+  public List<VirtualFile> getFiles(Project project) {
+    int editorTabLimit = UISettings.getInstance().getEditorTabLimit();
+    return ClosedFilesIndex.getInstance(project).getFiles(editorTabLimit + 1);
+  }
+}
@@ -0,0 +1,31 @@
+package org.intellij.ideaplugins.tabswitchx.filefetcher;
+
+import java.util.List;
+
+import org.intellij.ideaplugins.tabswitchx.mru.MruFileIndex;
+import org.intellij.ideaplugins.tabswitchx.mru.WindowMruIndex;
+
+import com.intellij.ide.ui.UISettings;
+import com.intellij.openapi.fileEditor.ex.FileEditorManagerEx;
+import com.intellij.openapi.fileEditor.impl.EditorWindow;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.vfs.VirtualFile;
+
+public class CurrentWindowFilesFileFetcher implements FileFetcher<VirtualFile> {
+
+  /**
+   * @param project an idea project.
+   *
+   * @return Not {@code null}. Files open in the current split window in most recently used order, served from the
+   * {@link WindowMruIndex}, or those of the whole project if there is no current window.
+   */
+  @Override
+  public List<VirtualFile> getFiles(Project project) {
+    int editorTabLimit = UISettings.getInstance().getEditorTabLimit();
+    EditorWindow window = FileEditorManagerEx.getInstanceEx(project).getCurrentWindow();
+    if (window == null) {
+      return MruFileIndex.getInstance(project).getFiles(editorTabLimit + 1);
+    }
+    return WindowMruIndex.getInstance(project).getFiles(window, editorTabLimit + 1);
+  }
+}
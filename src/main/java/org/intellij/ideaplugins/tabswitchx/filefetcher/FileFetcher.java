@@ -2,7 +2,11 @@ package org.intellij.ideaplugins.tabswitchx.filefetcher;
 
 import java.util.List;
 
+import org.jetbrains.concurrency.CancellablePromise;
+
+import com.intellij.openapi.application.ReadAction;
 import com.intellij.openapi.project.Project;
+import com.intellij.util.concurrency.AppExecutorUtil;
 
 /**
  * Should provide a way to fetch a list of files, of type {@code FILE}.
@@ -14,4 +18,43 @@ public interface FileFetcher<FILE> {
    * @return List of files of type {@code FILE}, or empty. Not {@code null}.
    */
   List<FILE> getFiles(Project project);
+
+  /**
+   * Must not block, as it is called on the EDT while the popup is about to show. Fetchers with a slow source return
+   * what they have at hand and leave the rest to {@link #getFilesAsync(Project)}.
+   *
+   * @param project an idea project.
+   *
+   * @return List of files of type {@code FILE}, possibly stale, or empty. Not {@code null}.
+   */
+  default List<FILE> getCachedFiles(Project project) {
+    return getFiles(project);
+  }
+
+  /**
+   * Must not block, like {@link #getCachedFiles(Project)}.
+   *
+   * @param project an idea project.
+   *
+   * @return whether {@link #getCachedFiles(Project)} may be stale right now, so that the shown list is worth replacing
+   * by the result of {@link #getFilesAsync(Project)}.
+   */
+  default boolean isStale(Project project) {
+    return false;
+  }
+
+  /**
+   * Only called if {@link #isStale(Project)}. By default computes {@link #getFiles(Project)} in a non-blocking read
+   * action on a pooled thread. The read action restarts
+   * when a write action comes in between, and is cancelled with the returned promise or when the project is disposed.
+   *
+   * @param project an idea project.
+   *
+   * @return promise of the list of files of type {@code FILE}.
+   */
+  default CancellablePromise<List<FILE>> getFilesAsync(Project project) {
+    return ReadAction.nonBlocking(() -> getFiles(project))
+      .expireWith(project)
+      .submit(AppExecutorUtil.getAppExecutorService());
+  }
 }
@@ -0,0 +1,24 @@
+package org.intellij.ideaplugins.tabswitchx.filefetcher;
+
+import java.util.List;
+
+import org.intellij.ideaplugins.tabswitchx.frecency.FrecencyIndex;
+
+import com.intellij.ide.ui.UISettings;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.vfs.VirtualFile;
+
+public class FrecentFilesFileFetcher implements FileFetcher<VirtualFile> {
+
+  /**
+   * @param project an idea project.
+   *
+   * @return Not {@code null}. Open files, the selected one first and the others in descending frecency, served from
+   * the {@link FrecencyIndex}.
+   */
+  @Override
+  public List<VirtualFile> getFiles(Project project) {
+    int editorTabLimit = UISettings.getInstance().getEditorTabLimit();
+    return FrecencyIndex.getInstance(project).getFiles(editorTabLimit + 1);
+  }
+}
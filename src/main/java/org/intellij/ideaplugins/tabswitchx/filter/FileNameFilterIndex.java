@@ -0,0 +1,169 @@
+package org.intellij.ideaplugins.tabswitchx.filter;
+
+import java.util.Arrays;
+import java.util.List;
+
+import com.intellij.openapi.vfs.VirtualFile;
+
+/**
+ * Matches the names of a fixed list of files against a typed query. The names are lowercased and their word starts
+ * and character sets are computed once, so matching a query is a bit test per file for most non-candidates and a
+ * single pass over the name for the rest.
+ * <p>
+ * A file matches if the query is a subsequence of its name, ignoring case. Matches are ranked prefix first, then
+ * camel-hump ({@code "ffif"} for {@code FileFetcherIndexFile}), then any other subsequence, and keep the order of the
+ * list within each rank.
+ */
+public class FileNameFilterIndex {
+
+  private static final int PREFIX = 0;
+  private static final int CAMEL_HUMP = 1;
+  private static final int SUBSEQUENCE = 2;
+  private static final int NO_MATCH = -1;
+
+  private final char[][] names;
+  private final boolean[][] wordStarts;
+  private final long[] masks;
+
+  // reused across queries, one bucket per rank
+  private final int[][] buckets = new int[3][];
+  private final int[] bucketSizes = new int[3];
+  // reused by isCamelHump, name positions reachable after matching a part of the query
+  private boolean[] reachable = new boolean[64];
+  private boolean[] nextReachable = new boolean[64];
+
+  public FileNameFilterIndex(List<VirtualFile> files) {
+    int size = files.size();
+    names = new char[size][];
+    wordStarts = new boolean[size][];
+    masks = new long[size];
+    for (int i = 0; i < size; i++) {
+      String name = files.get(i).getName();
+      char[] lower = new char[name.length()];
+      boolean[] starts = new boolean[name.length()];
+      long mask = 0;
+      for (int c = 0; c < lower.length; c++) {
+        char ch = name.charAt(c);
+        lower[c] = Character.toLowerCase(ch);
+        starts[c] = isWordStart(name, c);
+        mask |= maskBit(lower[c]);
+      }
+      names[i] = lower;
+      wordStarts[i] = starts;
+      masks[i] = mask;
+    }
+    for (int i = 0; i < buckets.length; i++) {
+      buckets[i] = new int[size];
+    }
+  }
+
+  public int size() {
+    return names.length;
+  }
+
+  /**
+   * @param query  lowercase query.
+   * @param result receives the indices of the matching files, best first. Must hold {@link #size()} elements.
+   *
+   * @return the number of matching files written to {@code result}.
+   */
+  public int filter(CharSequence query, int[] result) {
+    long queryMask = 0;
+    for (int q = 0; q < query.length(); q++) {
+      queryMask |= maskBit(query.charAt(q));
+    }
+    bucketSizes[PREFIX] = 0;
+    bucketSizes[CAMEL_HUMP] = 0;
+    bucketSizes[SUBSEQUENCE] = 0;
+    for (int i = 0; i < names.length; i++) {
+      if ((masks[i] & queryMask) != queryMask) continue;
+      int rank = match(query, names[i], wordStarts[i]);
+      if (rank != NO_MATCH) {
+        buckets[rank][bucketSizes[rank]++] = i;
+      }
+    }
+    int count = 0;
+    for (int rank = PREFIX; rank <= SUBSEQUENCE; rank++) {
+      System.arraycopy(buckets[rank], 0, result, count, bucketSizes[rank]);
+      count += bucketSizes[rank];
+    }
+    return count;
+  }
+
+  private int match(CharSequence query, char[] name, boolean[] starts) {
+    int length = query.length();
+    if (length > name.length) return NO_MATCH;
+    if (isPrefix(query, name)) return PREFIX;
+    if (isCamelHump(query, name, starts)) return CAMEL_HUMP;
+    return isSubsequence(query, name) ? SUBSEQUENCE : NO_MATCH;
+  }
+
+  private static boolean isPrefix(CharSequence query, char[] name) {
+    for (int q = 0; q < query.length(); q++) {
+      if (name[q] != query.charAt(q)) return false;
+    }
+    return true;
+  }
+
+  /**
+   * Every query character either continues the word matched so far or starts a later word of the name. Both choices
+   * are followed for every character, e.g. {@code "fin"} matches {@code FileIndex} by starting the second word with
+   * {@code i} rather than continuing the first one, in one pass over the name per query character.
+   */
+  private boolean isCamelHump(CharSequence query, char[] name, boolean[] starts) {
+    int length = name.length;
+    if (reachable.length <= length) {
+      reachable = new boolean[length + 1];
+      nextReachable = new boolean[length + 1];
+    }
+    // reachable[p]: the characters matched so far can end right before position p
+    Arrays.fill(reachable, 0, length + 1, false);
+    reachable[0] = true;
+    for (int q = 0; q < query.length(); q++) {
+      char ch = query.charAt(q);
+      Arrays.fill(nextReachable, 0, length + 1, false);
+      boolean matched = false;
+      boolean reachedBefore = false;
+      for (int p = 0; p < length; p++) {
+        reachedBefore |= reachable[p];
+        if (name[p] == ch && (starts[p] ? reachedBefore : q > 0 && reachable[p])) {
+          nextReachable[p + 1] = true;
+          matched = true;
+        }
+      }
+      if (!matched) return false;
+      boolean[] swap = reachable;
+      reachable = nextReachable;
+      nextReachable = swap;
+    }
+    return true;
+  }
+
+  private static boolean isSubsequence(CharSequence query, char[] name) {
+    int position = 0;
+    for (int q = 0; q < query.length(); q++) {
+      char ch = query.charAt(q);
+      while (position < name.length && name[position] != ch) {
+        position++;
+      }
+      if (position == name.length) return false;
+      position++;
+    }
+    return true;
+  }
+
+  private static boolean isWordStart(String name, int index) {
+    if (index == 0) return true;
+    char previous = name.charAt(index - 1);
+    char current = name.charAt(index);
+    if (!Character.isLetterOrDigit(previous)) return Character.isLetterOrDigit(current);
+    if (Character.isUpperCase(current)) return !Character.isUpperCase(previous);
+    return Character.isDigit(current) != Character.isDigit(previous);
+  }
+
+  private static long maskBit(char ch) {
+    if (ch >= 'a' && ch <= 'z') return 1L << (ch - 'a');
+    if (ch >= '0' && ch <= '9') return 1L << (26 + ch - '0');
+    return 1L << (36 + ch % 28);
+  }
+}
@@ -0,0 +1,541 @@
+package org.intellij.ideaplugins.tabswitchx.filter;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Predicate;
+
+import org.intellij.ideaplugins.tabswitchx.mru.ClosedFilesIndex;
+import org.intellij.ideaplugins.tabswitchx.settings.TabSwitchXSettings;
+import org.jetbrains.annotations.NotNull;
+
+import com.intellij.ProjectTopics;
+import com.intellij.openapi.application.ApplicationManager;
+import com.intellij.openapi.application.ReadAction;
+import com.intellij.openapi.components.AbstractProjectComponent;
+import com.intellij.openapi.progress.ProgressManager;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.roots.ContentIterator;
+import com.intellij.openapi.roots.ModuleRootEvent;
+import com.intellij.openapi.roots.ModuleRootListener;
+import com.intellij.openapi.roots.ProjectFileIndex;
+import com.intellij.openapi.vfs.VirtualFile;
+import com.intellij.openapi.vfs.VirtualFileManager;
+import com.intellij.openapi.vfs.VirtualFileWithId;
+import com.intellij.openapi.vfs.newvfs.BulkFileListener;
+import com.intellij.openapi.vfs.newvfs.events.VFileCopyEvent;
+import com.intellij.openapi.vfs.newvfs.events.VFileCreateEvent;
+import com.intellij.openapi.vfs.newvfs.events.VFileDeleteEvent;
+import com.intellij.openapi.vfs.newvfs.events.VFileEvent;
+import com.intellij.openapi.vfs.newvfs.events.VFileMoveEvent;
+import com.intellij.openapi.vfs.newvfs.events.VFilePropertyChangeEvent;
+import com.intellij.util.concurrency.AppExecutorUtil;
+
+/**
+ * Names of all files in the content of a project, so that the switcher filter can fall through to files that are not
+ * listed. Only kept while {@link TabSwitchXSettings#searchProjectFiles} is on.
+ * <p>
+ * The index is an immutable {@link Snapshot} built in a background read action: the distinct lowercase names sorted
+ * and packed into one char array, the VFS ids of the files grouped by name, and trigram postings of the names, all in
+ * primitive arrays. A prefix is a binary search in the name table, an infix an intersection of postings verified
+ * against the names. VFS events are applied as a small delta of added and removed files on top of the snapshot, which
+ * is rebuilt once the delta grows beyond {@link #MAX_DELTA}, when the project roots change, or when a directory is
+ * created or moved. Deleted directories need no rebuild, as files that are no longer valid are dropped on lookup.
+ * <p>
+ * Matches are ranked prefix before infix, and within a rank the most recently closed files first, by the
+ * {@link ClosedFilesIndex}, then by name.
+ */
+public class ProjectFileNameIndex extends AbstractProjectComponent {
+
+  private static final int MAX_DELTA = 1000;
+  // candidates collected per rank for each result, so that recently closed files can outrank the alphabetical order
+  private static final int CANDIDATES_PER_RESULT = 4;
+
+  private static final int PREFIX = 0;
+  private static final int INFIX = 1;
+
+  private final ExecutorService executor = AppExecutorUtil.createBoundedApplicationPoolExecutor("TabSwitchX File Name Index", 1);
+  private final AtomicBoolean rebuildScheduled = new AtomicBoolean();
+  private volatile Snapshot snapshot = Snapshot.EMPTY;
+  private volatile boolean enabled;
+
+  // VFS id to lowercase name of the files created, renamed or moved into the content since the snapshot was read,
+  // and ids of the files deleted, renamed or moved out. Snapshot entries with an id in either are ignored.
+  private final Map<Integer, String> added = new HashMap<>();
+  private final Set<Integer> removed = new HashSet<>();
+  private int modCount;
+
+  public ProjectFileNameIndex(Project project) {
+    super(project);
+  }
+
+  public static ProjectFileNameIndex getInstance(Project project) {
+    return project.getComponent(ProjectFileNameIndex.class);
+  }
+
+  @Override
+  public void initComponent() {
+    var connection = myProject.getMessageBus().connect(myProject);
+    connection.subscribe(VirtualFileManager.VFS_CHANGES, new BulkFileListener() {
+      @Override
+      public void after(@NotNull List<? extends VFileEvent> events) {
+        if (enabled) {
+          update(events);
+        }
+      }
+    });
+    connection.subscribe(ProjectTopics.PROJECT_ROOTS, new ModuleRootListener() {
+      @Override
+      public void rootsChanged(@NotNull ModuleRootEvent event) {
+        scheduleRebuild();
+      }
+    });
+    ApplicationManager.getApplication().getMessageBus().connect(myProject).subscribe(TabSwitchXSettings.TOPIC, this::setEnabled);
+  }
+
+  @Override
+  public void projectOpened() {
+    setEnabled(TabSwitchXSettings.getInstance());
+  }
+
+  private synchronized void setEnabled(TabSwitchXSettings settings) {
+    if (settings.searchProjectFiles == enabled) return;
+    enabled = settings.searchProjectFiles;
+    if (enabled) {
+      scheduleRebuild();
+    } else {
+      snapshot = Snapshot.EMPTY;
+      added.clear();
+      removed.clear();
+    }
+  }
+
+  /**
+   * Must be called on the EDT or in a read action.
+   *
+   * @param query   lowercase query.
+   * @param limit   maximum number of files to return.
+   * @param exclude files not to return, e.g. the ones already listed.
+   *
+   * @return Not {@code null}. Files in the project content whose name starts with the query, or contains it if it has
+   * at least three characters, best first.
+   */
+  public List<VirtualFile> find(@NotNull CharSequence query, int limit, @NotNull Predicate<VirtualFile> exclude) {
+    if (!enabled || query.length() == 0 || limit <= 0) return Collections.emptyList();
+    String q = query.toString();
+    Snapshot snapshot = this.snapshot;
+    Map<Integer, String> added;
+    Set<Integer> ignored;
+    synchronized (this) {
+      added = new HashMap<>(this.added);
+      ignored = new HashSet<>(removed);
+    }
+    ignored.addAll(added.keySet());
+
+    int maxCandidates = limit * CANDIDATES_PER_RESULT;
+    Candidates candidates = new Candidates(myProject, exclude);
+    snapshot.findPrefix(q, id -> ignored.contains(id) || candidates.add(id, PREFIX, maxCandidates));
+    snapshot.findInfix(q, id -> ignored.contains(id) || candidates.add(id, INFIX, maxCandidates));
+    for (Map.Entry<Integer, String> entry : added.entrySet()) {
+      String name = entry.getValue();
+      if (name.startsWith(q)) {
+        candidates.add(entry.getKey(), PREFIX, Integer.MAX_VALUE);
+      } else if (q.length() >= Snapshot.TRIGRAM && name.contains(q)) {
+        candidates.add(entry.getKey(), INFIX, Integer.MAX_VALUE);
+      }
+    }
+    return candidates.toList(limit);
+  }
+
+  private void update(List<? extends VFileEvent> events) {
+    ProjectFileIndex fileIndex = ProjectFileIndex.getInstance(myProject);
+    boolean rebuild = false;
+    synchronized (this) {
+      for (VFileEvent event : events) {
+        VirtualFile file = event instanceof VFileCopyEvent ? ((VFileCopyEvent) event).findCreatedFile() : event.getFile();
+        if (!(file instanceof VirtualFileWithId)) continue;
+        int id = ((VirtualFileWithId) file).getId();
+        if (event instanceof VFileDeleteEvent) {
+          added.remove(id);
+          removed.add(id);
+        } else if (event instanceof VFileCreateEvent || event instanceof VFileCopyEvent || event instanceof VFileMoveEvent) {
+          if (file.isDirectory()) {
+            // the files below a new directory come without events of their own
+            rebuild |= fileIndex.isInContent(file);
+          } else if (fileIndex.isInContent(file)) {
+            added.put(id, toLowerCase(file.getNameSequence()));
+          } else {
+            added.remove(id);
+            removed.add(id);
+          }
+        } else if (event instanceof VFilePropertyChangeEvent && ((VFilePropertyChangeEvent) event).isRename() && !file.isDirectory()) {
+          removed.add(id);
+          if (fileIndex.isInContent(file)) {
+            added.put(id, toLowerCase(file.getNameSequence()));
+          }
+        } else {
+          continue;
+        }
+        modCount++;
+      }
+      rebuild |= added.size() + removed.size() > MAX_DELTA;
+    }
+    if (rebuild) {
+      scheduleRebuild();
+    }
+  }
+
+  private void scheduleRebuild() {
+    if (enabled && rebuildScheduled.compareAndSet(false, true)) {
+      ReadAction.nonBlocking(this::build)
+        .expireWith(myProject)
+        .submit(executor)
+        .onSuccess(this::install);
+    }
+  }
+
+  /**
+   * Runs in a read action, and so does not overlap with VFS events.
+   */
+  private Snapshot build() {
+    rebuildScheduled.set(false);
+    int buildModCount;
+    synchronized (this) {
+      buildModCount = modCount;
+    }
+    FileCollector collector = new FileCollector();
+    ProjectFileIndex.getInstance(myProject).iterateContent(collector);
+    return Snapshot.create(collector.ids, collector.names, collector.size, buildModCount);
+  }
+
+  private synchronized void install(Snapshot snapshot) {
+    if (!enabled) return;
+    this.snapshot = snapshot;
+    // events after the read action are not in the snapshot, and keep the delta until the next rebuild
+    if (snapshot.modCount == modCount) {
+      added.clear();
+      removed.clear();
+    }
+  }
+
+  static String toLowerCase(CharSequence name) {
+    char[] lower = new char[name.length()];
+    for (int i = 0; i < lower.length; i++) {
+      lower[i] = Character.toLowerCase(name.charAt(i));
+    }
+    return new String(lower);
+  }
+
+  private static final class FileCollector implements ContentIterator {
+    private int[] ids = new int[1024];
+    private String[] names = new String[1024];
+    private int size;
+
+    @Override
+    public boolean processFile(@NotNull VirtualFile file) {
+      ProgressManager.checkCanceled();
+      if (!file.isDirectory() && file instanceof VirtualFileWithId) {
+        if (size == ids.length) {
+          ids = Arrays.copyOf(ids, size * 2);
+          names = Arrays.copyOf(names, size * 2);
+        }
+        ids[size] = ((VirtualFileWithId) file).getId();
+        names[size] = toLowerCase(file.getNameSequence());
+        size++;
+      }
+      return true;
+    }
+  }
+
+  /**
+   * Resolves matching ids to files, dropping files that are gone, no longer in the content, or excluded.
+   */
+  private static final class Candidates {
+    private final VirtualFileManager fileManager = VirtualFileManager.getInstance();
+    private final ProjectFileIndex fileIndex;
+    private final ClosedFilesIndex closedFilesIndex;
+    private final Predicate<VirtualFile> exclude;
+    private final Set<Integer> seen = new HashSet<>();
+    private final List<Candidate> candidates = new ArrayList<>();
+    private final int[] counts = new int[2];
+
+    Candidates(Project project, Predicate<VirtualFile> exclude) {
+      this.fileIndex = ProjectFileIndex.getInstance(project);
+      this.closedFilesIndex = ClosedFilesIndex.getInstance(project);
+      this.exclude = exclude;
+    }
+
+    /**
+     * @return whether more candidates of this rank are wanted.
+     */
+    boolean add(int id, int rank, int maxCandidates) {
+      if (counts[rank] >= maxCandidates) return false;
+      if (!seen.add(id)) return true;
+      VirtualFile file = fileManager.findFileById(id);
+      if (file != null && file.isValid() && !file.isDirectory() && fileIndex.isInContent(file) && !exclude.test(file)) {
+        candidates.add(new Candidate(file, rank, closedFilesIndex.getClosedAt(file)));
+        counts[rank]++;
+      }
+      return counts[rank] < maxCandidates;
+    }
+
+    List<VirtualFile> toList(int limit) {
+      // stable, so files that were never closed keep the order of the name table
+      candidates.sort(Comparator.comparingInt((Candidate candidate) -> candidate.rank)
+                        .thenComparing(candidate -> candidate.closedAt, Comparator.reverseOrder()));
+      List<VirtualFile> result = new ArrayList<>(Math.min(limit, candidates.size()));
+      for (int i = 0; i < candidates.size() && result.size() < limit; i++) {
+        result.add(candidates.get(i).file);
+      }
+      return result;
+    }
+  }
+
+  private static final class Candidate {
+    private final VirtualFile file;
+    private final int rank;
+    private final long closedAt;
+
+    private Candidate(VirtualFile file, int rank, long closedAt) {
+      this.file = file;
+      this.rank = rank;
+      this.closedAt = closedAt;
+    }
+  }
+
+  /**
+   * Immutable name table of the files in the project content at one point in time.
+   */
+  static final class Snapshot {
+
+    static final int TRIGRAM = 3;
+    static final Snapshot EMPTY = create(new int[0], new String[0], 0, -1);
+
+    // distinct lowercase names in sorted order, name i is nameChars[nameOffsets[i] .. nameOffsets[i + 1])
+    private final char[] nameChars;
+    private final int[] nameOffsets;
+    // VFS ids of the files named i are fileIds[fileOffsets[i] .. fileOffsets[i + 1])
+    private final int[] fileIds;
+    private final int[] fileOffsets;
+    // sorted distinct trigrams, the ids of the names containing trigram i are postings[postingOffsets[i] .. postingOffsets[i + 1])
+    private final int[] trigrams;
+    private final int[] postings;
+    private final int[] postingOffsets;
+    private final int modCount;
+
+    private Snapshot(char[] nameChars, int[] nameOffsets, int[] fileIds, int[] fileOffsets, int[] trigrams, int[] postings,
+                     int[] postingOffsets, int modCount) {
+      this.nameChars = nameChars;
+      this.nameOffsets = nameOffsets;
+      this.fileIds = fileIds;
+      this.fileOffsets = fileOffsets;
+      this.trigrams = trigrams;
+      this.postings = postings;
+      this.postingOffsets = postingOffsets;
+      this.modCount = modCount;
+    }
+
+    /**
+     * @param ids   VFS ids of the files.
+     * @param names lowercase names of the files, in the order of the ids.
+     * @param size  number of files.
+     */
+    static Snapshot create(int[] ids, String[] names, int size, int modCount) {
+      String[] distinct = new HashSet<>(Arrays.asList(names).subList(0, size)).toArray(new String[0]);
+      Arrays.sort(distinct);
+
+      int[] nameOffsets = new int[distinct.length + 1];
+      for (int i = 0; i < distinct.length; i++) {
+        nameOffsets[i + 1] = nameOffsets[i] + distinct[i].length();
+      }
+      char[] nameChars = new char[nameOffsets[distinct.length]];
+      for (int i = 0; i < distinct.length; i++) {
+        distinct[i].getChars(0, distinct[i].length(), nameChars, nameOffsets[i]);
+      }
+
+      int[] nameIds = new int[size];
+      int[] fileOffsets = new int[distinct.length + 1];
+      for (int i = 0; i < size; i++) {
+        nameIds[i] = Arrays.binarySearch(distinct, names[i]);
+        fileOffsets[nameIds[i] + 1]++;
+      }
+      for (int i = 0; i < distinct.length; i++) {
+        fileOffsets[i + 1] += fileOffsets[i];
+      }
+      int[] fileIds = new int[size];
+      int[] next = Arrays.copyOf(fileOffsets, distinct.length);
+      for (int i = 0; i < size; i++) {
+        fileIds[next[nameIds[i]]++] = ids[i];
+      }
+
+      // (trigram, name id) pairs in one long each, sorted and deduplicated into the postings
+      int pairCount = 0;
+      for (String name : distinct) {
+        pairCount += Math.max(0, name.length() - TRIGRAM + 1);
+      }
+      long[] pairs = new long[pairCount];
+      int p = 0;
+      for (int nameId = 0; nameId < distinct.length; nameId++) {
+        for (int i = 0; i + TRIGRAM <= distinct[nameId].length(); i++) {
+          pairs[p++] = (long) trigram(distinct[nameId], i) << 32 | nameId;
+        }
+      }
+      Arrays.sort(pairs);
+      int[] trigrams = new int[pairCount];
+      int[] postings = new int[pairCount];
+      int[] postingOffsets = new int[pairCount + 1];
+      int trigramCount = 0;
+      int postingCount = 0;
+      for (int i = 0; i < pairCount; i++) {
+        if (i > 0 && pairs[i] == pairs[i - 1]) continue;
+        int trigram = (int) (pairs[i] >>> 32);
+        if (trigramCount == 0 || trigrams[trigramCount - 1] != trigram) {
+          trigrams[trigramCount] = trigram;
+          postingOffsets[trigramCount] = postingCount;
+          trigramCount++;
+        }
+        postings[postingCount++] = (int) pairs[i];
+      }
+      postingOffsets[trigramCount] = postingCount;
+      return new Snapshot(nameChars, nameOffsets, fileIds, fileOffsets, Arrays.copyOf(trigrams, trigramCount),
+                          Arrays.copyOf(postings, postingCount), Arrays.copyOf(postingOffsets, trigramCount + 1), modCount);
+    }
+
+    /**
+     * Passes the ids of the files whose name starts with {@code query} to {@code consumer}, in name order, until it
+     * returns {@code false}.
+     */
+    void findPrefix(String query, IdConsumer consumer) {
+      int nameCount = nameOffsets.length - 1;
+      int low = 0;
+      int high = nameCount;
+      while (low < high) {
+        int middle = (low + high) >>> 1;
+        if (compare(middle, query) < 0) {
+          low = middle + 1;
+        } else {
+          high = middle;
+        }
+      }
+      for (int nameId = low; nameId < nameCount && startsWith(nameId, query); nameId++) {
+        if (!consumeFiles(nameId, consumer)) return;
+      }
+    }
+
+    /**
+     * Passes the ids of the files whose name contains {@code query} other than at the start to {@code consumer}, in
+     * name order, until it returns {@code false}. Queries shorter than a trigram match nothing.
+     */
+    void findInfix(String query, IdConsumer consumer) {
+      if (query.length() < TRIGRAM) return;
+      int count = query.length() - TRIGRAM + 1;
+      int[] cursors = new int[count];
+      int[] ends = new int[count];
+      int shortest = 0;
+      for (int i = 0; i < count; i++) {
+        int index = Arrays.binarySearch(trigrams, trigram(query, i));
+        if (index < 0) return;
+        cursors[i] = postingOffsets[index];
+        ends[i] = postingOffsets[index + 1];
+        if (ends[i] - cursors[i] < ends[shortest] - cursors[shortest]) {
+          shortest = i;
+        }
+      }
+      // the shortest postings drive, the others are skipped ahead, and the name itself is the final check
+      candidates:
+      for (int p = cursors[shortest]; p < ends[shortest]; p++) {
+        int nameId = postings[p];
+        for (int i = 0; i < count; i++) {
+          if (i == shortest) continue;
+          cursors[i] = skipTo(cursors[i], ends[i], nameId);
+          if (cursors[i] == ends[i]) return;
+          if (postings[cursors[i]] != nameId) continue candidates;
+        }
+        if (!startsWith(nameId, query) && contains(nameId, query) && !consumeFiles(nameId, consumer)) return;
+      }
+    }
+
+    /**
+     * @return the first index from {@code from} on whose posting is at least {@code nameId}, or {@code to}. Gallops, so
+     * skipping over long postings costs only the logarithm of the distance.
+     */
+    private int skipTo(int from, int to, int nameId) {
+      int step = 1;
+      int low = from;
+      int high = from;
+      while (high < to && postings[high] < nameId) {
+        low = high + 1;
+        high = from + step;
+        step <<= 1;
+      }
+      high = Math.min(high, to);
+      while (low < high) {
+        int middle = (low + high) >>> 1;
+        if (postings[middle] < nameId) {
+          low = middle + 1;
+        } else {
+          high = middle;
+        }
+      }
+      return low;
+    }
+
+    private boolean consumeFiles(int nameId, IdConsumer consumer) {
+      for (int f = fileOffsets[nameId]; f < fileOffsets[nameId + 1]; f++) {
+        if (!consumer.accept(fileIds[f])) return false;
+      }
+      return true;
+    }
+
+    private int compare(int nameId, String query) {
+      int start = nameOffsets[nameId];
+      int length = nameOffsets[nameId + 1] - start;
+      for (int i = 0; i < Math.min(length, query.length()); i++) {
+        int difference = nameChars[start + i] - query.charAt(i);
+        if (difference != 0) return difference;
+      }
+      return length - query.length();
+    }
+
+    private boolean startsWith(int nameId, String query) {
+      int start = nameOffsets[nameId];
+      if (nameOffsets[nameId + 1] - start < query.length()) return false;
+      for (int i = 0; i < query.length(); i++) {
+        if (nameChars[start + i] != query.charAt(i)) return false;
+      }
+      return true;
+    }
+
+    private boolean contains(int nameId, String query) {
+      int start = nameOffsets[nameId];
+      int last = nameOffsets[nameId + 1] - query.length();
+      for (int from = start; from <= last; from++) {
+        int i = 0;
+        while (i < query.length() && nameChars[from + i] == query.charAt(i)) {
+          i++;
+        }
+        if (i == query.length()) return true;
+      }
+      return false;
+    }
+
+    /**
+     * Non-ASCII characters are folded into the ASCII range, which only adds candidates that the names rule out.
+     */
+    private static int trigram(String name, int index) {
+      return (name.charAt(index) & 0x7F) << 14 | (name.charAt(index + 1) & 0x7F) << 7 | name.charAt(index + 2) & 0x7F;
+    }
+  }
+
+  interface IdConsumer {
+    boolean accept(int id);
+  }
+}
@@ -0,0 +1,102 @@
+package org.intellij.ideaplugins.tabswitchx.frecency;
+
+import java.util.Collections;
+import java.util.List;
+
+import org.intellij.ideaplugins.tabswitchx.mru.MruFileIndex;
+import org.jetbrains.annotations.NotNull;
+
+import com.intellij.openapi.components.AbstractProjectComponent;
+import com.intellij.openapi.fileEditor.FileEditorManager;
+import com.intellij.openapi.fileEditor.FileEditorManagerEvent;
+import com.intellij.openapi.fileEditor.FileEditorManagerListener;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.vfs.VirtualFile;
+
+/**
+ * Ranks the open files of a project by frecency, see {@link FrecencyScores}: every selection of a file adds one visit.
+ * As all scores decay at the same rate, the ranking only changes when a file is visited, opened or closed, and is
+ * cached until then.
+ */
+public class FrecencyIndex extends AbstractProjectComponent {
+
+  private final FrecencyScores<VirtualFile> scores = new FrecencyScores<>(VirtualFile::isValid);
+  private int modCount;
+  private boolean seeded;
+
+  private List<VirtualFile> snapshot = Collections.emptyList();
+  private int snapshotLimit = -1;
+  private int snapshotModCount = -1;
+
+  public FrecencyIndex(Project project) {
+    super(project);
+  }
+
+  public static FrecencyIndex getInstance(Project project) {
+    return project.getComponent(FrecencyIndex.class);
+  }
+
+  @Override
+  public void initComponent() {
+    myProject.getMessageBus().connect(myProject).subscribe(FileEditorManagerListener.FILE_EDITOR_MANAGER, new FileEditorManagerListener() {
+      @Override
+      public void fileOpened(@NotNull FileEditorManager source, @NotNull VirtualFile file) {
+        setOpen(file, true);
+      }
+
+      @Override
+      public void fileClosed(@NotNull FileEditorManager source, @NotNull VirtualFile file) {
+        if (!source.isFileOpen(file)) {
+          setOpen(file, false);
+        }
+      }
+
+      @Override
+      public void selectionChanged(@NotNull FileEditorManagerEvent event) {
+        VirtualFile file = event.getNewFile();
+        if (file != null) {
+          visit(file);
+        }
+      }
+    });
+  }
+
+  /**
+   * @param limit maximum number of files to return.
+   *
+   * @return Not {@code null}. Unmodifiable list of valid open files: the selected one first, then the others by
+   * descending frecency.
+   */
+  public synchronized List<VirtualFile> getFiles(int limit) {
+    ensureSeeded();
+    if (limit != snapshotLimit || modCount != snapshotModCount) {
+      snapshot = Collections.unmodifiableList(scores.rank(limit, System.currentTimeMillis()));
+      snapshotLimit = limit;
+      snapshotModCount = modCount;
+    }
+    return snapshot;
+  }
+
+  private synchronized void visit(VirtualFile file) {
+    scores.visit(file, System.currentTimeMillis());
+    modCount++;
+  }
+
+  private synchronized void setOpen(VirtualFile file, boolean isOpen) {
+    scores.setOpen(file, isOpen, System.currentTimeMillis());
+    modCount++;
+  }
+
+  /**
+   * Files open before the first visit get ids in most recently used order, so that the unvisited ones rank by recency.
+   */
+  private void ensureSeeded() {
+    if (seeded) return;
+    seeded = true;
+    long now = System.currentTimeMillis();
+    for (VirtualFile file : MruFileIndex.getInstance(myProject).getFiles(Integer.MAX_VALUE)) {
+      scores.setOpen(file, true, now);
+    }
+    modCount++;
+  }
+}
@@ -0,0 +1,215 @@
+package org.intellij.ideaplugins.tabswitchx.frecency;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Predicate;
+
+/**
+ * Frecency scores of distinct elements: every visit adds one, and visits lose half their weight every
+ * {@link #HALF_LIFE_MILLIS}.
+ * <p>
+ * Each element seen gets a compact id, and the score and the time it was last brought up to date live in primitive
+ * arrays indexed by that id. Scores are only decayed when they are read.
+ * <p>
+ * Closed elements are kept while their score is worth something, so that reopening one keeps its rank. Each time as
+ * many elements were closed as half the ids, those that are no longer valid or decayed below {@link #MIN_SCORE} are
+ * forgotten and the arrays compacted.
+ * <p>
+ * Not thread safe, callers synchronize.
+ */
+public class FrecencyScores<T> {
+
+  static final long HALF_LIFE_MILLIS = 30 * 60 * 1000L;
+  private static final double DECAY_PER_MILLI = Math.log(2) / HALF_LIFE_MILLIS;
+  // a single visit decays below this after six half-lives
+  static final double MIN_SCORE = 1 / 64.0;
+
+  private final Predicate<? super T> isValid;
+  private final Map<T, Integer> ids = new HashMap<>();
+  private Object[] elements = new Object[64];
+  private double[] scores = new double[64];
+  private long[] scoredAt = new long[64];
+  private boolean[] open = new boolean[64];
+  private int size;
+  private int currentId = -1;
+  private int closedSinceReclaim;
+
+  // reused by every ranking
+  private int[] order = new int[64];
+  private double[] keys = new double[64];
+
+  /**
+   * @param isValid whether an element can still be listed; invalid ones are skipped, and forgotten once closed.
+   */
+  public FrecencyScores(Predicate<? super T> isValid) {
+    this.isValid = isValid;
+  }
+
+  /**
+   * Adds a visit to {@code element} at {@code now}, and makes it the open and current one.
+   */
+  public void visit(T element, long now) {
+    int id = idOf(element);
+    scores[id] = decayedScore(id, now) + 1;
+    scoredAt[id] = now;
+    open[id] = true;
+    currentId = id;
+  }
+
+  /**
+   * Opens or closes {@code element}, keeping its score.
+   */
+  public void setOpen(T element, boolean isOpen, long now) {
+    if (!isOpen && !ids.containsKey(element)) return;
+    int id = idOf(element);
+    open[id] = isOpen;
+    if (!isOpen) {
+      if (id == currentId) {
+        currentId = -1;
+      }
+      if (++closedSinceReclaim > size / 2) {
+        reclaim(now);
+      }
+    }
+  }
+
+  /**
+   * @param limit maximum number of elements to return.
+   *
+   * @return Not {@code null}. The valid open elements: the current one first, then the others by descending score at
+   * {@code now}, and in the order they were first seen for equal scores.
+   */
+  public List<T> rank(int limit, long now) {
+    int count = 0;
+    for (int id = 0; id < size; id++) {
+      if (open[id] && id != currentId && isValid.test(elementAt(id))) {
+        order[count++] = id;
+        keys[id] = decayedScore(id, now);
+      }
+    }
+    sortByKeyDescending(order, 0, count - 1, keys);
+    List<T> result = new ArrayList<>(Math.min(limit, count + 1));
+    if (currentId >= 0 && isValid.test(elementAt(currentId)) && result.size() < limit) {
+      result.add(elementAt(currentId));
+    }
+    for (int i = 0; i < count && result.size() < limit; i++) {
+      result.add(elementAt(order[i]));
+    }
+    return result;
+  }
+
+  /**
+   * @return number of elements with an id, open or not.
+   */
+  public int size() {
+    return size;
+  }
+
+  private double decayedScore(int id, long now) {
+    double score = scores[id];
+    return score == 0 ? 0 : score * Math.exp(-DECAY_PER_MILLI * (now - scoredAt[id]));
+  }
+
+  private boolean isReclaimable(int id, long now) {
+    return !open[id] && (!isValid.test(elementAt(id)) || decayedScore(id, now) < MIN_SCORE);
+  }
+
+  /**
+   * Forgets the reclaimable elements and moves the others down to the lowest ids, keeping their order.
+   */
+  private void reclaim(long now) {
+    closedSinceReclaim = 0;
+    int kept = 0;
+    for (int id = 0; id < size; id++) {
+      T element = elementAt(id);
+      if (isReclaimable(id, now)) {
+        ids.remove(element);
+        continue;
+      }
+      elements[kept] = element;
+      scores[kept] = scores[id];
+      scoredAt[kept] = scoredAt[id];
+      open[kept] = open[id];
+      ids.put(element, kept);
+      if (id == currentId) {
+        currentId = kept;
+      }
+      kept++;
+    }
+    Arrays.fill(elements, kept, size, null);
+    size = kept;
+    if (elements.length > 64 && size < elements.length / 4) {
+      resize(elements.length / 2);
+    }
+  }
+
+  /**
+   * Quicksort of {@code ids[from..to]} by descending {@code keys[id]}, and by ascending id for equal keys, so that
+   * elements never visited keep the order they were first seen in.
+   */
+  private static void sortByKeyDescending(int[] ids, int from, int to, double[] keys) {
+    while (to - from > 16) {
+      int pivot = ids[(from + to) >>> 1];
+      int i = from;
+      int j = to;
+      while (i <= j) {
+        while (precedes(ids[i], pivot, keys)) i++;
+        while (precedes(pivot, ids[j], keys)) j--;
+        if (i <= j) {
+          int swap = ids[i];
+          ids[i++] = ids[j];
+          ids[j--] = swap;
+        }
+      }
+      // recurse into the smaller part, loop on the larger one
+      if (j - from < to - i) {
+        sortByKeyDescending(ids, from, j, keys);
+        from = i;
+      } else {
+        sortByKeyDescending(ids, i, to, keys);
+        to = j;
+      }
+    }
+    for (int i = from + 1; i <= to; i++) {
+      int id = ids[i];
+      int j = i - 1;
+      while (j >= from && precedes(id, ids[j], keys)) {
+        ids[j + 1] = ids[j];
+        j--;
+      }
+      ids[j + 1] = id;
+    }
+  }
+
+  private static boolean precedes(int id1, int id2, double[] keys) {
+    return keys[id1] > keys[id2] || keys[id1] == keys[id2] && id1 < id2;
+  }
+
+  @SuppressWarnings("unchecked")
+  private T elementAt(int id) {
+    return (T) elements[id];
+  }
+
+  private int idOf(T element) {
+    Integer id = ids.get(element);
+    if (id != null) return id;
+    if (size == elements.length) {
+      resize(size * 2);
+    }
+    elements[size] = element;
+    ids.put(element, size);
+    return size++;
+  }
+
+  private void resize(int capacity) {
+    elements = Arrays.copyOf(elements, capacity);
+    scores = Arrays.copyOf(scores, capacity);
+    scoredAt = Arrays.copyOf(scoredAt, capacity);
+    open = Arrays.copyOf(open, capacity);
+    order = new int[capacity];
+    keys = new double[capacity];
+  }
+}
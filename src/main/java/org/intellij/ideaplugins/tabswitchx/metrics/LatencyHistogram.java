@@ -0,0 +1,76 @@
+package org.intellij.ideaplugins.tabswitchx.metrics;
+
+import java.util.Arrays;
+
+/**
+ * Latency histogram with fixed, exponentially growing buckets from 10 microseconds to about a minute. Recording is a
+ * binary search and an increment, and allocates nothing. Percentiles are reported as the upper bound of their bucket,
+ * i.e. with at most 10% error.
+ */
+public class LatencyHistogram {
+
+  private static final long[] UPPER_BOUNDS_NANOS = createUpperBounds();
+
+  private final String name;
+  private final long[] counts = new long[UPPER_BOUNDS_NANOS.length + 1];
+  private long total;
+  private long maxNanos;
+
+  public LatencyHistogram(String name) {
+    this.name = name;
+  }
+
+  private static long[] createUpperBounds() {
+    long[] bounds = new long[165];
+    double bound = 10_000;
+    for (int i = 0; i < bounds.length; i++) {
+      bounds[i] = (long) bound;
+      bound *= 1.1;
+    }
+    return bounds;
+  }
+
+  public String getName() {
+    return name;
+  }
+
+  public synchronized void record(long nanos) {
+    if (nanos < 0) return;
+    int bucket = Arrays.binarySearch(UPPER_BOUNDS_NANOS, nanos);
+    counts[bucket >= 0 ? bucket : -bucket - 1]++;
+    total++;
+    if (nanos > maxNanos) maxNanos = nanos;
+  }
+
+  public synchronized long getCount() {
+    return total;
+  }
+
+  public synchronized long getMaxNanos() {
+    return maxNanos;
+  }
+
+  /**
+   * @param percentile between 0 and 100.
+   *
+   * @return upper bound of the bucket holding the given percentile, or 0 if nothing was recorded.
+   */
+  public synchronized long getPercentileNanos(double percentile) {
+    if (total == 0) return 0;
+    long rank = (long) Math.ceil(total * percentile / 100);
+    long seen = 0;
+    for (int i = 0; i < counts.length; i++) {
+      seen += counts[i];
+      if (seen >= rank && seen > 0) {
+        return i < UPPER_BOUNDS_NANOS.length ? Math.min(UPPER_BOUNDS_NANOS[i], maxNanos) : maxNanos;
+      }
+    }
+    return maxNanos;
+  }
+
+  public synchronized void reset() {
+    Arrays.fill(counts, 0);
+    total = 0;
+    maxNanos = 0;
+  }
+}
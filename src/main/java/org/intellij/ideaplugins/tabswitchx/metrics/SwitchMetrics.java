@@ -0,0 +1,56 @@
+package org.intellij.ideaplugins.tabswitchx.metrics;
+
+import java.awt.event.KeyEvent;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import com.intellij.openapi.application.ApplicationManager;
+
+/**
+ * Latencies of tab switches as the user feels them, shown in the TabSwitchX tool window.
+ * <ul>
+ *   <li>fetch: time spent collecting the files of the popup.</li>
+ *   <li>key to visible: from the key press that triggered the action until the popup is shown.</li>
+ *   <li>key to open: from that key press until the selected file was opened in its editor.</li>
+ * </ul>
+ * Key based latencies start at {@link KeyEvent#getWhen()}, so they have millisecond resolution.
+ */
+public class SwitchMetrics {
+
+  private final LatencyHistogram fetch = new LatencyHistogram("Fetch files");
+  private final LatencyHistogram keyToVisible = new LatencyHistogram("Key to popup visible");
+  private final LatencyHistogram keyToOpen = new LatencyHistogram("Key to file open");
+  private final List<LatencyHistogram> histograms = Collections.unmodifiableList(Arrays.asList(fetch, keyToVisible, keyToOpen));
+
+  public static SwitchMetrics getInstance() {
+    return ApplicationManager.getApplication().getService(SwitchMetrics.class);
+  }
+
+  public void recordFetch(long nanos) {
+    fetch.record(nanos);
+  }
+
+  public void recordVisible(KeyEvent trigger) {
+    keyToVisible.record(sinceKeyEvent(trigger));
+  }
+
+  public void recordOpen(KeyEvent trigger) {
+    keyToOpen.record(sinceKeyEvent(trigger));
+  }
+
+  public List<LatencyHistogram> getHistograms() {
+    return histograms;
+  }
+
+  public void reset() {
+    for (LatencyHistogram histogram : histograms) {
+      histogram.reset();
+    }
+  }
+
+  private static long sinceKeyEvent(KeyEvent event) {
+    return TimeUnit.MILLISECONDS.toNanos(System.currentTimeMillis() - event.getWhen());
+  }
+}
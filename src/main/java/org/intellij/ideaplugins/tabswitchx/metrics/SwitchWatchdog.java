@@ -0,0 +1,196 @@
+package org.intellij.ideaplugins.tabswitchx.metrics;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.intellij.ideaplugins.tabswitchx.settings.TabSwitchXSettings;
+
+import com.intellij.openapi.application.ApplicationManager;
+import com.intellij.openapi.application.PathManager;
+import com.intellij.openapi.diagnostic.Logger;
+import com.intellij.util.concurrency.AppExecutorUtil;
+
+/**
+ * Opt-in watchdog for slow tab switches. Each phase of a switch has a time budget from the {@link TabSwitchXSettings}.
+ * Nothing is sampled while a phase stays within its budget; once it overruns, the stack of the EDT is sampled every
+ * {@link #SAMPLE_MILLIS} until the phase ends. A phase that overran is reported with the timings of all phases of the
+ * switch so far and the samples as collapsed stacks, to {@code tabswitchx-slow.log} in the IDE log directory and to
+ * the IDE log, at most once per {@link #REPORT_INTERVAL_MILLIS}.
+ * <p>
+ * {@link #enter(Phase)} and {@link #exit(Phase)} are called on the EDT.
+ */
+public class SwitchWatchdog {
+
+  private static final Logger LOG = Logger.getInstance(SwitchWatchdog.class);
+
+  private static final int SAMPLE_MILLIS = 10;
+  private static final int MAX_SAMPLES = 100;
+  private static final int MAX_FRAMES = 64;
+  private static final long REPORT_INTERVAL_MILLIS = 60_000;
+  private static final long MAX_REPORT_FILE_BYTES = 1024 * 1024;
+
+  public enum Phase {
+    FETCH("fetch files"),
+    SHOW("build and show popup"),
+    OPEN("open selected file");
+
+    private final String description;
+
+    Phase(String description) {
+      this.description = description;
+    }
+  }
+
+  private final ExecutorService writer = AppExecutorUtil.createBoundedApplicationPoolExecutor("TabSwitchX Watchdog", 1);
+  private final Path reportFile = Paths.get(PathManager.getLogPath(), "tabswitchx-slow.log");
+
+  // phase timings of the current switch, reset when it starts with FETCH
+  private final Map<Phase, Long> timings = new EnumMap<>(Phase.class);
+  private final List<StackTraceElement[]> samples = new ArrayList<>();
+  private volatile Phase activePhase;
+  private Thread edt;
+  private long phaseStart;
+  private ScheduledFuture<?> sampler;
+  private long lastReport;
+
+  public static SwitchWatchdog getInstance() {
+    return ApplicationManager.getApplication().getService(SwitchWatchdog.class);
+  }
+
+  public void enter(Phase phase) {
+    TabSwitchXSettings settings = TabSwitchXSettings.getInstance();
+    if (!settings.watchdogEnabled) return;
+    if (phase == Phase.FETCH) {
+      timings.clear();
+    }
+    cancelSampler();
+    synchronized (samples) {
+      samples.clear();
+    }
+    edt = Thread.currentThread();
+    activePhase = phase;
+    phaseStart = System.nanoTime();
+    sampler = AppExecutorUtil.getAppScheduledExecutorService()
+      .scheduleWithFixedDelay(() -> sample(phase), getBudgetMillis(settings, phase), SAMPLE_MILLIS, TimeUnit.MILLISECONDS);
+  }
+
+  public void exit(Phase phase) {
+    if (activePhase != phase) return;
+    long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - phaseStart);
+    activePhase = null;
+    cancelSampler();
+    timings.put(phase, elapsedMillis);
+    if (elapsedMillis > getBudgetMillis(TabSwitchXSettings.getInstance(), phase) && canReport()) {
+      List<StackTraceElement[]> overrunSamples;
+      synchronized (samples) {
+        overrunSamples = new ArrayList<>(samples);
+      }
+      String report = createReport(phase, new EnumMap<>(timings), overrunSamples);
+      writer.execute(() -> write(report));
+    }
+  }
+
+  private static long getBudgetMillis(TabSwitchXSettings settings, Phase phase) {
+    switch (phase) {
+      case FETCH:
+        return settings.fetchBudgetMillis;
+      case SHOW:
+        return settings.showBudgetMillis;
+      default:
+        return settings.openBudgetMillis;
+    }
+  }
+
+  private void sample(Phase phase) {
+    if (activePhase != phase) return;
+    StackTraceElement[] stack = edt.getStackTrace();
+    synchronized (samples) {
+      if (samples.size() < MAX_SAMPLES) {
+        samples.add(stack);
+      }
+    }
+  }
+
+  private void cancelSampler() {
+    if (sampler != null) {
+      sampler.cancel(false);
+      sampler = null;
+    }
+  }
+
+  private boolean canReport() {
+    long now = System.currentTimeMillis();
+    if (now - lastReport < REPORT_INTERVAL_MILLIS) return false;
+    lastReport = now;
+    return true;
+  }
+
+  private static String createReport(Phase overrun, Map<Phase, Long> timings, List<StackTraceElement[]> samples) {
+    StringBuilder report = new StringBuilder();
+    report.append(new SimpleDateFormat("yyyy-MM-dd HH:mm:ss.SSS").format(new Date()))
+      .append(" slow tab switch, ").append(overrun.description).append(" over budget\n");
+    for (Map.Entry<Phase, Long> timing : timings.entrySet()) {
+      report.append("  ").append(timing.getKey().description).append(": ").append(timing.getValue()).append(" ms\n");
+    }
+    report.append("  ").append(samples.size()).append(" EDT samples every ").append(SAMPLE_MILLIS).append(" ms after the budget ran out:\n");
+    for (Map.Entry<String, Integer> stack : collapse(samples).entrySet()) {
+      report.append("  ").append(stack.getKey()).append(' ').append(stack.getValue()).append('\n');
+    }
+    return report.toString();
+  }
+
+  /**
+   * @return the samples as collapsed stacks, outermost frame first and frames separated by ';', with the number of
+   * samples that had that stack. Stacks deeper than {@link #MAX_FRAMES} keep their outermost frames, so that they still
+   * merge on a common root, and end in {@code ...} where inner frames were cut.
+   */
+  private static Map<String, Integer> collapse(List<StackTraceElement[]> samples) {
+    Map<String, Integer> result = new TreeMap<>();
+    StringBuilder line = new StringBuilder();
+    for (StackTraceElement[] stack : samples) {
+      line.setLength(0);
+      int innermost = Math.max(0, stack.length - MAX_FRAMES);
+      for (int i = stack.length - 1; i >= innermost; i--) {
+        if (line.length() > 0) line.append(';');
+        line.append(stack[i].getClassName()).append('.').append(stack[i].getMethodName());
+      }
+      if (innermost > 0) {
+        line.append(";...");
+      }
+      result.merge(line.toString(), 1, Integer::sum);
+    }
+    return result;
+  }
+
+  private void write(String report) {
+    LOG.warn(report);
+    try {
+      Files.createDirectories(reportFile.getParent());
+      if (Files.isRegularFile(reportFile) && Files.size(reportFile) > MAX_REPORT_FILE_BYTES) {
+        Files.move(reportFile, reportFile.resolveSibling(reportFile.getFileName() + ".1"), StandardCopyOption.REPLACE_EXISTING);
+      }
+      try (Writer out = Files.newBufferedWriter(reportFile, StandardCharsets.UTF_8, StandardOpenOption.CREATE, StandardOpenOption.APPEND)) {
+        out.write(report);
+        out.write('\n');
+      }
+    } catch (IOException e) {
+      LOG.info("Cannot write " + reportFile, e);
+    }
+  }
+}
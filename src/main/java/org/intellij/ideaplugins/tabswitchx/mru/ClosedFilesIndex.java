@@ -0,0 +1,137 @@
+package org.intellij.ideaplugins.tabswitchx.mru;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.jetbrains.annotations.NotNull;
+
+import com.intellij.openapi.components.AbstractProjectComponent;
+import com.intellij.openapi.fileEditor.FileEditorManager;
+import com.intellij.openapi.fileEditor.FileEditorManagerListener;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.vfs.VirtualFile;
+import com.intellij.openapi.vfs.VirtualFileManager;
+import com.intellij.openapi.vfs.VirtualFileWithId;
+
+/**
+ * Remembers the files most recently closed in a project. Closing a file writes its VFS id and the time into a ring
+ * buffer of {@link #CAPACITY} entries, replacing an earlier entry of the same file, so memory stays the same however
+ * many tabs are closed in a session. Opening a file again removes it.
+ */
+public class ClosedFilesIndex extends AbstractProjectComponent {
+
+  private static final int CAPACITY = 100;
+
+  private final int[] fileIds = new int[CAPACITY];
+  private final long[] closedAt = new long[CAPACITY];
+  // index of the oldest entry, the newest one is at head + size - 1
+  private int head;
+  private int size;
+  private int modCount;
+
+  private List<VirtualFile> snapshot = Collections.emptyList();
+  private int snapshotLimit = -1;
+  private int snapshotModCount = -1;
+
+  public ClosedFilesIndex(Project project) {
+    super(project);
+  }
+
+  public static ClosedFilesIndex getInstance(Project project) {
+    return project.getComponent(ClosedFilesIndex.class);
+  }
+
+  @Override
+  public void initComponent() {
+    myProject.getMessageBus().connect(myProject).subscribe(FileEditorManagerListener.FILE_EDITOR_MANAGER, new FileEditorManagerListener() {
+      @Override
+      public void fileOpened(@NotNull FileEditorManager source, @NotNull VirtualFile file) {
+        if (file instanceof VirtualFileWithId) {
+          opened(((VirtualFileWithId) file).getId());
+        }
+      }
+
+      @Override
+      public void fileClosed(@NotNull FileEditorManager source, @NotNull VirtualFile file) {
+        // files without a VFS id, like diffs or scratch editors, cannot be found again
+        if (file instanceof VirtualFileWithId && !source.isFileOpen(file)) {
+          closed(((VirtualFileWithId) file).getId(), System.currentTimeMillis());
+        }
+      }
+    });
+  }
+
+  /**
+   * @param limit maximum number of files to return.
+   *
+   * @return Not {@code null}. Unmodifiable list of valid recently closed files, most recently closed first.
+   */
+  public synchronized List<VirtualFile> getFiles(int limit) {
+    if (limit != snapshotLimit || modCount != snapshotModCount) {
+      VirtualFileManager fileManager = VirtualFileManager.getInstance();
+      List<VirtualFile> files = new ArrayList<>(Math.min(limit, size));
+      for (int i = size - 1; i >= 0 && files.size() < limit; i--) {
+        VirtualFile file = fileManager.findFileById(fileIds[slot(i)]);
+        if (file != null && file.isValid()) {
+          files.add(file);
+        }
+      }
+      snapshot = Collections.unmodifiableList(files);
+      snapshotLimit = limit;
+      snapshotModCount = modCount;
+    }
+    return snapshot;
+  }
+
+  /**
+   * @return the time {@code file} was last closed, or 0 if it is not in the index.
+   */
+  public synchronized long getClosedAt(VirtualFile file) {
+    int i = file instanceof VirtualFileWithId ? indexOf(((VirtualFileWithId) file).getId()) : -1;
+    return i >= 0 ? closedAt[slot(i)] : 0;
+  }
+
+  synchronized void closed(int fileId, long timestamp) {
+    removeAt(indexOf(fileId));
+    if (size == CAPACITY) {
+      // overwrite the oldest entry
+      head = (head + 1) % CAPACITY;
+      size--;
+    }
+    fileIds[slot(size)] = fileId;
+    closedAt[slot(size)] = timestamp;
+    size++;
+    modCount++;
+  }
+
+  synchronized void opened(int fileId) {
+    if (removeAt(indexOf(fileId))) {
+      modCount++;
+    }
+  }
+
+  private int indexOf(int fileId) {
+    for (int i = size - 1; i >= 0; i--) {
+      if (fileIds[slot(i)] == fileId) return i;
+    }
+    return -1;
+  }
+
+  /**
+   * Removes the entry at {@code i}, counted from the oldest one, by moving the newer entries down.
+   */
+  private boolean removeAt(int i) {
+    if (i < 0) return false;
+    for (; i < size - 1; i++) {
+      fileIds[slot(i)] = fileIds[slot(i + 1)];
+      closedAt[slot(i)] = closedAt[slot(i + 1)];
+    }
+    size--;
+    return true;
+  }
+
+  private int slot(int i) {
+    return (head + i) % CAPACITY;
+  }
+}
@@ -0,0 +1,51 @@
+package org.intellij.ideaplugins.tabswitchx.mru;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import com.intellij.openapi.fileEditor.FileEditor;
+import com.intellij.openapi.fileEditor.FileEditorManagerEvent;
+import com.intellij.openapi.fileEditor.ex.FileEditorManagerEx;
+import com.intellij.openapi.fileEditor.impl.EditorWindow;
+import com.intellij.openapi.vfs.VirtualFile;
+import com.intellij.util.ArrayUtil;
+
+/**
+ * Lookups of the editor split windows of a project. Must be called on the EDT.
+ */
+public final class EditorWindows {
+
+  private EditorWindows() {
+  }
+
+  /**
+   * @return the window that holds the newly selected editor of {@code event}, which is not necessarily the current
+   * window, e.g. when a file is opened into a given split. The current window if the editor is in none.
+   */
+  @Nullable
+  public static EditorWindow findWindow(@NotNull FileEditorManagerEx manager, @NotNull FileEditorManagerEvent event) {
+    VirtualFile file = event.getNewFile();
+    FileEditor editor = event.getNewEditor();
+    if (file != null && editor != null) {
+      for (EditorWindow window : manager.getWindows()) {
+        var composite = window.findFileComposite(file);
+        if (composite != null && ArrayUtil.contains(editor, composite.getEditors())) {
+          return window;
+        }
+      }
+    }
+    return manager.getCurrentWindow();
+  }
+
+  /**
+   * @return whether {@code file} is pinned in any window it is open in.
+   */
+  public static boolean isPinned(@NotNull FileEditorManagerEx manager, @NotNull VirtualFile file) {
+    for (EditorWindow window : manager.getWindows()) {
+      if (window.isFileOpen(file) && window.isFilePinned(file)) {
+        return true;
+      }
+    }
+    return false;
+  }
+}
@@ -0,0 +1,231 @@
+package org.intellij.ideaplugins.tabswitchx.mru;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.jetbrains.annotations.NotNull;
+
+import com.intellij.openapi.components.AbstractProjectComponent;
+import com.intellij.openapi.fileEditor.FileEditorManager;
+import com.intellij.openapi.fileEditor.FileEditorManagerEvent;
+import com.intellij.openapi.fileEditor.FileEditorManagerListener;
+import com.intellij.openapi.fileEditor.impl.EditorHistoryManager;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.project.ProjectManager;
+import com.intellij.openapi.project.ProjectManagerListener;
+import com.intellij.openapi.vfs.VirtualFile;
+
+/**
+ * Keeps the files open in tabs of a project in most recently used order. The order is maintained incrementally from
+ * {@link FileEditorManagerListener} events, so fetching it for the switcher popup does not scan the editor history.
+ * <p>
+ * The order is also written to a {@link MruJournal}, which is what the index starts from after a restart.
+ * <p>
+ * Files can also be {@link #addPending(Collection) pending}: listed after the open files by
+ * {@link #getSwitcherFiles(int)}, but not opened in an editor until they are switched to.
+ */
+public class MruFileIndex extends AbstractProjectComponent {
+
+  private static final int MAX_PENDING = 100;
+
+  private final MruList<VirtualFile> files = new MruList<>();
+  private boolean seeded;
+  private Set<VirtualFile> pending = Collections.emptySet();
+  private int pendingModCount;
+
+  private MruJournal journal;
+  private List<String> journaledUrls = Collections.emptyList();
+  private volatile boolean journaling;
+
+  private List<VirtualFile> snapshot = Collections.emptyList();
+  private int snapshotLimit = -1;
+  private int snapshotModCount = -1;
+
+  private List<VirtualFile> switcherSnapshot = Collections.emptyList();
+  private List<VirtualFile> switcherSnapshotFiles;
+  private int switcherSnapshotPendingModCount = -1;
+
+  public MruFileIndex(Project project) {
+    super(project);
+  }
+
+  public static MruFileIndex getInstance(Project project) {
+    return project.getComponent(MruFileIndex.class);
+  }
+
+  @Override
+  public void initComponent() {
+    journal = MruJournal.forProject(myProject);
+    journaledUrls = journal.load();
+    journaling = true;
+    ProjectManager.getInstance().addProjectManagerListener(myProject, new ProjectManagerListener() {
+      @Override
+      public void projectClosing(@NotNull Project project) {
+        // editors closed while the project goes down must stay in the journal
+        journaling = false;
+        journal.close();
+      }
+    });
+    myProject.getMessageBus().connect(myProject).subscribe(FileEditorManagerListener.FILE_EDITOR_MANAGER, new FileEditorManagerListener() {
+      @Override
+      public void fileOpened(@NotNull FileEditorManager source, @NotNull VirtualFile file) {
+        opened(file);
+      }
+
+      @Override
+      public void fileClosed(@NotNull FileEditorManager source, @NotNull VirtualFile file) {
+        if (!source.isFileOpen(file)) {
+          closed(file);
+        }
+      }
+
+      @Override
+      public void selectionChanged(@NotNull FileEditorManagerEvent event) {
+        VirtualFile file = event.getNewFile();
+        if (file != null) {
+          selected(file);
+        }
+      }
+    });
+  }
+
+  /**
+   * @param limit maximum number of files to return.
+   *
+   * @return Not {@code null}. Unmodifiable list of valid open files, most recently used first.
+   */
+  public synchronized List<VirtualFile> getFiles(int limit) {
+    ensureSeeded();
+    if (limit != snapshotLimit || files.getModCount() != snapshotModCount) {
+      snapshot = Collections.unmodifiableList(files.toList(limit, VirtualFile::isValid));
+      snapshotLimit = limit;
+      snapshotModCount = files.getModCount();
+    }
+    return snapshot;
+  }
+
+  /**
+   * @param limit maximum number of files to return.
+   *
+   * @return Not {@code null}. Unmodifiable list of what the switcher shows: the {@link #getFiles(int) open files},
+   * followed by the valid pending files. The same instance as long as neither changes.
+   */
+  public synchronized List<VirtualFile> getSwitcherFiles(int limit) {
+    List<VirtualFile> openFiles = getFiles(limit);
+    if (pending.isEmpty()) return openFiles;
+    if (openFiles != switcherSnapshotFiles || pendingModCount != switcherSnapshotPendingModCount) {
+      List<VirtualFile> result = new ArrayList<>(openFiles);
+      for (VirtualFile file : pending) {
+        if (result.size() >= limit) break;
+        if (file.isValid()) {
+          result.add(file);
+        }
+      }
+      switcherSnapshot = Collections.unmodifiableList(result);
+      switcherSnapshotFiles = openFiles;
+      switcherSnapshotPendingModCount = pendingModCount;
+    }
+    return switcherSnapshot;
+  }
+
+  /**
+   * Puts {@code files} in front of the pending files, in this order, and drops the pending files at the end beyond
+   * {@link #MAX_PENDING}, the ones pending the longest. A pending file stops being pending once it is opened.
+   */
+  public synchronized void addPending(Collection<VirtualFile> files) {
+    Set<VirtualFile> result = new LinkedHashSet<>();
+    for (VirtualFile file : files) {
+      if (!this.files.contains(file)) {
+        result.add(file);
+      }
+    }
+    for (VirtualFile file : pending) {
+      if (result.size() >= MAX_PENDING) break;
+      result.add(file);
+    }
+    pending = result;
+    pendingModCount++;
+  }
+
+  /**
+   * @return Not {@code null}. The pending files, in their order.
+   */
+  public synchronized List<VirtualFile> getPending() {
+    return new ArrayList<>(pending);
+  }
+
+  private synchronized void opened(VirtualFile file) {
+    // before seeding, the journal or the history decides where the file goes
+    if (seeded) {
+      files.addLast(file);
+    }
+    if (pending.remove(file)) {
+      pendingModCount++;
+    }
+  }
+
+  private synchronized void selected(VirtualFile file) {
+    files.touch(file);
+    if (journaling) {
+      journal.touch(file.getUrl(), System.currentTimeMillis());
+    }
+  }
+
+  private synchronized void closed(VirtualFile file) {
+    files.remove(file);
+    if (journaling) {
+      journal.remove(file.getUrl());
+    }
+  }
+
+  /**
+   * Files selected since the project was opened are already in order; everything else that is open gets appended in
+   * journal order, or in editor history order if there is no journal yet, once.
+   */
+  private void ensureSeeded() {
+    if (seeded) return;
+    seeded = true;
+    FileEditorManager fileEditorManager = FileEditorManager.getInstance(myProject);
+    if (!journaledUrls.isEmpty()) {
+      seedFromJournal(fileEditorManager.getOpenFiles());
+    } else {
+      seedFromHistory(fileEditorManager);
+    }
+    for (VirtualFile file : fileEditorManager.getOpenFiles()) {
+      files.addLast(file);
+    }
+  }
+
+  /**
+   * Matches the journaled URLs against the open files only, so neither the history nor the VFS is consulted.
+   */
+  private void seedFromJournal(VirtualFile[] openFiles) {
+    Map<String, VirtualFile> openFilesByUrl = new HashMap<>();
+    for (VirtualFile file : openFiles) {
+      openFilesByUrl.put(file.getUrl(), file);
+    }
+    for (String url : journaledUrls) {
+      VirtualFile file = openFilesByUrl.remove(url);
+      if (file != null) {
+        files.addLast(file);
+        if (openFilesByUrl.isEmpty()) break;
+      }
+    }
+    journaledUrls = Collections.emptyList();
+  }
+
+  private void seedFromHistory(FileEditorManager fileEditorManager) {
+    VirtualFile[] recentFiles = EditorHistoryManager.getInstance(myProject).getFiles();
+    for (int i = recentFiles.length - 1; i >= 0; i--) {
+      if (fileEditorManager.isFileOpen(recentFiles[i])) {
+        files.addLast(recentFiles[i]);
+      }
+    }
+  }
+}
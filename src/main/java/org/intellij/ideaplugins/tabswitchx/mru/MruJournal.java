@@ -0,0 +1,267 @@
+package org.intellij.ideaplugins.tabswitchx.mru;
+
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.BufferUnderflowException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+import com.intellij.openapi.application.PathManager;
+import com.intellij.openapi.diagnostic.Logger;
+import com.intellij.openapi.project.Project;
+import com.intellij.util.concurrency.AppExecutorUtil;
+
+/**
+ * Append-only binary log of the tab usage order of one project, kept in the IDE system directory so the switcher
+ * knows the order right after a restart.
+ * <p>
+ * After a header, the log holds three kinds of records: DEFINE (id, file URL), TOUCH (id, timestamp) and
+ * REMOVE (id). It is read once through a memory-mapped buffer. All writes are done on a single background thread,
+ * and the log is rewritten with only the live entries once enough records have piled up.
+ */
+public class MruJournal {
+
+  private static final Logger LOG = Logger.getInstance(MruJournal.class);
+
+  private static final int MAGIC = 0x54535831; // "TSX1"
+  private static final byte DEFINE = 1;
+  private static final byte TOUCH = 2;
+  private static final byte REMOVE = 3;
+  private static final int COMPACT_AFTER_RECORDS = 4096;
+
+  private final Path file;
+  private final ExecutorService executor = AppExecutorUtil.createBoundedApplicationPoolExecutor("TabSwitchX MRU Journal", 1);
+
+  // only touched by the executor after load()
+  private final Map<String, Entry> entries = new HashMap<>();
+  private int nextId;
+  private int records;
+  private int compactAtRecords = COMPACT_AFTER_RECORDS;
+  private DataOutputStream out;
+  private boolean broken;
+
+  MruJournal(Path file) {
+    this.file = file;
+  }
+
+  static MruJournal forProject(Project project) {
+    return new MruJournal(Paths.get(PathManager.getSystemPath(), "tabswitchx", project.getLocationHash() + ".mru"));
+  }
+
+  /**
+   * Reads the log. Must be called once, before anything is recorded.
+   *
+   * @return Not {@code null}. URLs of the journaled files, most recently used first.
+   */
+  List<String> load() {
+    if (!Files.isRegularFile(file)) return Collections.emptyList();
+    Map<Integer, String> urls = new HashMap<>();
+    boolean complete = false;
+    try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+      MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+      if (buffer.remaining() < 4 || buffer.getInt() != MAGIC) {
+        // torn or foreign header, nothing can be read back; start over with an empty log
+        executor.execute(this::compact);
+        return Collections.emptyList();
+      }
+      try {
+        while (buffer.hasRemaining()) {
+          byte type = buffer.get();
+          int id = buffer.getInt();
+          if (type == DEFINE) {
+            int length = buffer.getInt();
+            if (length < 0 || length > buffer.remaining()) break;
+            byte[] bytes = new byte[length];
+            buffer.get(bytes);
+            urls.put(id, new String(bytes, StandardCharsets.UTF_8));
+          } else if (type == TOUCH) {
+            long timestamp = buffer.getLong();
+            String url = urls.get(id);
+            if (url != null) entries.put(url, new Entry(id, timestamp));
+          } else if (type == REMOVE) {
+            String url = urls.get(id);
+            if (url != null) entries.remove(url);
+          } else {
+            break;
+          }
+          records++;
+          nextId = Math.max(nextId, id + 1);
+        }
+        complete = !buffer.hasRemaining();
+      } catch (BufferUnderflowException e) {
+        // the IDE went down while a record was written, everything before it is intact
+      }
+    } catch (IOException e) {
+      LOG.warn("Cannot read " + file, e);
+      return Collections.emptyList();
+    }
+    if (!complete || needsCompaction()) {
+      // records appended after a torn one could not be read back
+      executor.execute(this::compact);
+    }
+    List<Map.Entry<String, Entry>> sorted = new ArrayList<>(entries.entrySet());
+    sorted.sort((e1, e2) -> Long.compare(e2.getValue().timestamp, e1.getValue().timestamp));
+    List<String> result = new ArrayList<>(sorted.size());
+    for (Map.Entry<String, Entry> entry : sorted) {
+      result.add(entry.getKey());
+    }
+    return result;
+  }
+
+  void touch(String url, long timestamp) {
+    executor.execute(() -> {
+      Entry entry = entries.get(url);
+      if (entry == null) {
+        entry = new Entry(nextId++, timestamp);
+        entries.put(url, entry);
+        append(DEFINE, entry.id, url, 0);
+      }
+      entry.timestamp = timestamp;
+      append(TOUCH, entry.id, null, timestamp);
+    });
+  }
+
+  void remove(String url) {
+    executor.execute(() -> {
+      Entry entry = entries.remove(url);
+      if (entry != null) {
+        append(REMOVE, entry.id, null, 0);
+      }
+    });
+  }
+
+  /**
+   * Flushes and closes the log once all pending records are written.
+   *
+   * @return Not {@code null}. Completes once the log is closed.
+   */
+  Future<?> close() {
+    return executor.submit(this::closeOutput);
+  }
+
+  private void append(byte type, int id, String url, long timestamp) {
+    if (broken) return;
+    try {
+      if (out == null) {
+        out = openForAppend();
+      }
+      writeRecord(out, type, id, url, timestamp);
+      out.flush();
+      records++;
+      if (needsCompaction()) {
+        compact();
+      }
+    } catch (IOException e) {
+      LOG.warn("Cannot write " + file + ", usage order will not be kept across restarts", e);
+      broken = true;
+      closeOutput();
+    }
+  }
+
+  private boolean needsCompaction() {
+    return records > compactAtRecords && records > 4 * entries.size();
+  }
+
+  /**
+   * Rewrites the log with one DEFINE and TOUCH per live entry, oldest first.
+   */
+  private void compact() {
+    if (broken) return;
+    closeOutput();
+    List<Map.Entry<String, Entry>> sorted = new ArrayList<>(entries.entrySet());
+    sorted.sort((e1, e2) -> Long.compare(e1.getValue().timestamp, e2.getValue().timestamp));
+    Path compacted = file.resolveSibling(file.getFileName() + ".tmp");
+    try {
+      try (DataOutputStream stream = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(compacted)))) {
+        stream.writeInt(MAGIC);
+        for (int id = 0; id < sorted.size(); id++) {
+          writeRecord(stream, DEFINE, id, sorted.get(id).getKey(), 0);
+          writeRecord(stream, TOUCH, id, null, sorted.get(id).getValue().timestamp);
+        }
+      }
+      Files.move(compacted, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+      // the ids only change once the compacted log is in place
+      for (int id = 0; id < sorted.size(); id++) {
+        sorted.get(id).getValue().id = id;
+      }
+      nextId = sorted.size();
+      records = 2 * sorted.size();
+      compactAtRecords = COMPACT_AFTER_RECORDS;
+    } catch (IOException e) {
+      // e.g. Windows refuses to replace the file while the buffer of load() is still mapped, appending still works
+      LOG.info("Cannot compact " + file + ", will retry later", e);
+      compactAtRecords = records + COMPACT_AFTER_RECORDS;
+    }
+  }
+
+  /**
+   * Opens the log for appending. A log without a valid header, e.g. one that compact() could not replace, is started
+   * over, as records appended to it could never be read back.
+   */
+  private DataOutputStream openForAppend() throws IOException {
+    Files.createDirectories(file.getParent());
+    boolean isNew = !hasHeader();
+    // creates or truncates a new log, appends to a valid one
+    OutputStream stream = isNew ? Files.newOutputStream(file) : Files.newOutputStream(file, StandardOpenOption.APPEND);
+    DataOutputStream result = new DataOutputStream(new BufferedOutputStream(stream));
+    if (isNew) {
+      result.writeInt(MAGIC);
+    }
+    return result;
+  }
+
+  private boolean hasHeader() throws IOException {
+    if (!Files.isRegularFile(file) || Files.size(file) < 4) return false;
+    try (DataInputStream in = new DataInputStream(Files.newInputStream(file))) {
+      return in.readInt() == MAGIC;
+    }
+  }
+
+  private static void writeRecord(DataOutputStream stream, byte type, int id, String url, long timestamp) throws IOException {
+    stream.writeByte(type);
+    stream.writeInt(id);
+    if (type == DEFINE) {
+      byte[] bytes = url.getBytes(StandardCharsets.UTF_8);
+      stream.writeInt(bytes.length);
+      stream.write(bytes);
+    } else if (type == TOUCH) {
+      stream.writeLong(timestamp);
+    }
+  }
+
+  private void closeOutput() {
+    if (out == null) return;
+    try {
+      out.close();
+    } catch (IOException e) {
+      LOG.warn("Cannot close " + file, e);
+    }
+    out = null;
+  }
+
+  private static final class Entry {
+    private int id;
+    private long timestamp;
+
+    private Entry(int id, long timestamp) {
+      this.id = id;
+      this.timestamp = timestamp;
+    }
+  }
+}
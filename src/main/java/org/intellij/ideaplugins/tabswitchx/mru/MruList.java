@@ -0,0 +1,126 @@
+package org.intellij.ideaplugins.tabswitchx.mru;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Predicate;
+
+/**
+ * Most-recently-used ordering of distinct elements. Moving an element to the front and removing an element are both
+ * O(1), so the list can be kept up to date from editor events without ever being rebuilt.
+ * <p>
+ * Not thread safe, callers synchronize.
+ */
+public class MruList<T> {
+
+  private final Map<T, Node<T>> nodes = new HashMap<>();
+  private Node<T> head;
+  private Node<T> tail;
+  private int modCount;
+
+  /**
+   * Moves {@code element} to the front, adding it if it is not in the list yet.
+   */
+  public void touch(T element) {
+    Node<T> node = nodes.get(element);
+    if (node == head && node != null) return;
+    if (node != null) {
+      unlink(node);
+    } else {
+      node = new Node<>(element);
+      nodes.put(element, node);
+    }
+    linkFirst(node);
+    modCount++;
+  }
+
+  /**
+   * Adds {@code element} as the least recently used one, if it is not in the list yet.
+   */
+  public void addLast(T element) {
+    if (nodes.containsKey(element)) return;
+    Node<T> node = new Node<>(element);
+    nodes.put(element, node);
+    linkLast(node);
+    modCount++;
+  }
+
+  public boolean remove(T element) {
+    Node<T> node = nodes.remove(element);
+    if (node == null) return false;
+    unlink(node);
+    modCount++;
+    return true;
+  }
+
+  public boolean contains(T element) {
+    return nodes.containsKey(element);
+  }
+
+  public int size() {
+    return nodes.size();
+  }
+
+  public void clear() {
+    nodes.clear();
+    head = null;
+    tail = null;
+    modCount++;
+  }
+
+  /**
+   * @return a counter that changes whenever the order or content of the list changes.
+   */
+  public int getModCount() {
+    return modCount;
+  }
+
+  /**
+   * @return at most {@code limit} elements accepted by {@code filter}, most recently used first.
+   */
+  public List<T> toList(int limit, Predicate<? super T> filter) {
+    List<T> result = new ArrayList<>(Math.min(limit, nodes.size()));
+    for (Node<T> node = head; node != null && result.size() < limit; node = node.next) {
+      if (filter.test(node.element)) {
+        result.add(node.element);
+      }
+    }
+    return result;
+  }
+
+  private void linkFirst(Node<T> node) {
+    node.prev = null;
+    node.next = head;
+    if (head != null) head.prev = node;
+    head = node;
+    if (tail == null) tail = node;
+  }
+
+  private void linkLast(Node<T> node) {
+    node.next = null;
+    node.prev = tail;
+    if (tail != null) tail.next = node;
+    tail = node;
+    if (head == null) head = node;
+  }
+
+  private void unlink(Node<T> node) {
+    if (node.prev != null) node.prev.next = node.next;
+    else head = node.next;
+    if (node.next != null) node.next.prev = node.prev;
+    else tail = node.prev;
+    node.prev = null;
+    node.next = null;
+  }
+
+  private static final class Node<T> {
+    private final T element;
+    private Node<T> prev;
+    private Node<T> next;
+
+    private Node(T element) {
+      this.element = element;
+    }
+  }
+}
@@ -0,0 +1,116 @@
+package org.intellij.ideaplugins.tabswitchx.mru;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.intellij.ideaplugins.tabswitchx.settings.TabSwitchXSettings;
+import org.jetbrains.annotations.NotNull;
+
+import com.intellij.openapi.application.ApplicationManager;
+import com.intellij.openapi.application.ModalityState;
+import com.intellij.openapi.components.AbstractProjectComponent;
+import com.intellij.openapi.editor.Document;
+import com.intellij.openapi.fileEditor.FileDocumentManager;
+import com.intellij.openapi.fileEditor.FileEditorManager;
+import com.intellij.openapi.fileEditor.FileEditorManagerListener;
+import com.intellij.openapi.fileEditor.ex.FileEditorManagerEx;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.vfs.VirtualFile;
+
+/**
+ * Optional budget on the open tabs of a project. After a file was opened, the least recently used tabs are closed
+ * while there are more than the configured number of tabs, or while their estimated memory footprint is above the
+ * configured ceiling. Tabs that are selected, pinned or have unsaved changes are never closed.
+ * <p>
+ * Closed tabs stay in the switcher: they go in front of the {@link MruFileIndex#addPending pending} files, which drop
+ * the ones pending the longest first, and are recorded by the {@link ClosedFilesIndex} like every closed file.
+ */
+public class TabBudget extends AbstractProjectComponent {
+
+  /**
+   * Rough heap cost of a character of an open document, including its PSI, highlighting and editor.
+   */
+  private static final long ESTIMATED_BYTES_PER_CHAR = 20;
+
+  private final AtomicBoolean enforceScheduled = new AtomicBoolean();
+
+  public TabBudget(Project project) {
+    super(project);
+  }
+
+  @Override
+  public void initComponent() {
+    myProject.getMessageBus().connect(myProject).subscribe(FileEditorManagerListener.FILE_EDITOR_MANAGER, new FileEditorManagerListener() {
+      @Override
+      public void fileOpened(@NotNull FileEditorManager source, @NotNull VirtualFile file) {
+        if (TabSwitchXSettings.getInstance().tabBudgetEnabled) {
+          scheduleEnforce();
+        }
+      }
+    });
+    ApplicationManager.getApplication().getMessageBus().connect(myProject).subscribe(TabSwitchXSettings.TOPIC, settings -> {
+      if (settings.tabBudgetEnabled) {
+        scheduleEnforce();
+      }
+    });
+  }
+
+  /**
+   * Opening several files at once, e.g. when a project is restored, is handled by one enforcement after the last.
+   */
+  private void scheduleEnforce() {
+    if (enforceScheduled.compareAndSet(false, true)) {
+      ApplicationManager.getApplication().invokeLater(() -> {
+        enforceScheduled.set(false);
+        enforce(TabSwitchXSettings.getInstance());
+      }, ModalityState.NON_MODAL, myProject.getDisposed());
+    }
+  }
+
+  private void enforce(TabSwitchXSettings settings) {
+    FileEditorManagerEx fileEditorManager = FileEditorManagerEx.getInstanceEx(myProject);
+    Set<VirtualFile> openFiles = new HashSet<>(Arrays.asList(fileEditorManager.getOpenFiles()));
+    long maxBytes = settings.tabBudgetMaxMegabytes * 1024L * 1024L;
+    long bytes = 0;
+    if (maxBytes > 0) {
+      for (VirtualFile file : openFiles) {
+        bytes += estimateBytes(file);
+      }
+    }
+    int tabs = openFiles.size();
+    if (tabs <= settings.tabBudgetMaxTabs && (maxBytes <= 0 || bytes <= maxBytes)) return;
+
+    Set<VirtualFile> selectedFiles = new HashSet<>(Arrays.asList(fileEditorManager.getSelectedFiles()));
+    MruFileIndex mruFileIndex = MruFileIndex.getInstance(myProject);
+    List<VirtualFile> mruFiles = mruFileIndex.getFiles(Integer.MAX_VALUE);
+    List<VirtualFile> closedFiles = new ArrayList<>();
+    for (int i = mruFiles.size() - 1; i >= 0; i--) {
+      if (tabs <= settings.tabBudgetMaxTabs && (maxBytes <= 0 || bytes <= maxBytes)) break;
+      VirtualFile file = mruFiles.get(i);
+      if (!openFiles.contains(file) || selectedFiles.contains(file) || EditorWindows.isPinned(fileEditorManager, file)
+          || FileDocumentManager.getInstance().isFileModified(file)) {
+        continue;
+      }
+      bytes -= maxBytes > 0 ? estimateBytes(file) : 0;
+      tabs--;
+      fileEditorManager.closeFile(file);
+      closedFiles.add(file);
+    }
+    // closed coldest first, listed most recently used first
+    Collections.reverse(closedFiles);
+    mruFileIndex.addPending(closedFiles);
+  }
+
+  /**
+   * Only documents that are loaded count, a tab that was never shown since the project opened costs next to nothing.
+   */
+  private static long estimateBytes(VirtualFile file) {
+    Document document = FileDocumentManager.getInstance().getCachedDocument(file);
+    return document != null ? document.getTextLength() * ESTIMATED_BYTES_PER_CHAR : 0;
+  }
+}
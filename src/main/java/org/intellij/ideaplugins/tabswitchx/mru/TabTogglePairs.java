@@ -0,0 +1,84 @@
+package org.intellij.ideaplugins.tabswitchx.mru;
+
+import java.util.Map;
+import java.util.WeakHashMap;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import com.intellij.openapi.components.AbstractProjectComponent;
+import com.intellij.openapi.fileEditor.FileEditorManagerEvent;
+import com.intellij.openapi.fileEditor.FileEditorManagerListener;
+import com.intellij.openapi.fileEditor.ex.FileEditorManagerEx;
+import com.intellij.openapi.fileEditor.impl.EditorWindow;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.vfs.VirtualFile;
+
+/**
+ * The current and the previously selected file of a project, and of each editor split window, maintained from
+ * selection events. Toggling between two tabs reads the previous file from here, without looking at the history.
+ */
+public class TabTogglePairs extends AbstractProjectComponent {
+
+  private final TogglePair projectPair = new TogglePair();
+  // weak keys, so closed split windows disappear on their own
+  private final Map<EditorWindow, TogglePair> windowPairs = new WeakHashMap<>();
+
+  public TabTogglePairs(Project project) {
+    super(project);
+  }
+
+  public static TabTogglePairs getInstance(Project project) {
+    return project.getComponent(TabTogglePairs.class);
+  }
+
+  @Override
+  public void initComponent() {
+    myProject.getMessageBus().connect(myProject).subscribe(FileEditorManagerListener.FILE_EDITOR_MANAGER, new FileEditorManagerListener() {
+      @Override
+      public void selectionChanged(@NotNull FileEditorManagerEvent event) {
+        VirtualFile file = event.getNewFile();
+        if (file != null) {
+          selected(file, EditorWindows.findWindow(FileEditorManagerEx.getInstanceEx(myProject), event));
+        }
+      }
+    });
+  }
+
+  /**
+   * @return the file selected before the current one in the whole project, or {@code null} if nothing was selected
+   * twice since the project was opened.
+   */
+  @Nullable
+  public synchronized VirtualFile getPrevious() {
+    return projectPair.previous;
+  }
+
+  /**
+   * @return the file selected before the current one in {@code window}, or {@code null} if there is none.
+   */
+  @Nullable
+  public synchronized VirtualFile getPrevious(@NotNull EditorWindow window) {
+    TogglePair pair = windowPairs.get(window);
+    return pair != null ? pair.previous : null;
+  }
+
+  private synchronized void selected(VirtualFile file, @Nullable EditorWindow window) {
+    projectPair.select(file);
+    if (window != null && !window.isDisposed()) {
+      windowPairs.computeIfAbsent(window, w -> new TogglePair()).select(file);
+    }
+  }
+
+  private static final class TogglePair {
+    private VirtualFile current;
+    private VirtualFile previous;
+
+    private void select(VirtualFile file) {
+      if (!file.equals(current)) {
+        previous = current;
+        current = file;
+      }
+    }
+  }
+}
@@ -0,0 +1,95 @@
+package org.intellij.ideaplugins.tabswitchx.mru;
+
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+import org.jetbrains.annotations.NotNull;
+
+import com.intellij.openapi.components.AbstractProjectComponent;
+import com.intellij.openapi.fileEditor.FileEditorManager;
+import com.intellij.openapi.fileEditor.FileEditorManagerEvent;
+import com.intellij.openapi.fileEditor.FileEditorManagerListener;
+import com.intellij.openapi.fileEditor.ex.FileEditorManagerEx;
+import com.intellij.openapi.fileEditor.impl.EditorWindow;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.vfs.VirtualFile;
+
+/**
+ * Keeps the tabs of each editor split window in most recently used order, like {@link MruFileIndex} does for the
+ * whole project. Selections are recorded for the window that holds the selected editor; tabs of a window that were
+ * never selected are appended when the window is asked for its files.
+ * <p>
+ * The order of a window is dropped once the window is closed.
+ */
+public class WindowMruIndex extends AbstractProjectComponent {
+
+  // weak keys as a safety net, closed windows are also removed when their last file closes
+  private final Map<EditorWindow, MruList<VirtualFile>> windows = new WeakHashMap<>();
+
+  public WindowMruIndex(Project project) {
+    super(project);
+  }
+
+  public static WindowMruIndex getInstance(Project project) {
+    return project.getComponent(WindowMruIndex.class);
+  }
+
+  @Override
+  public void initComponent() {
+    myProject.getMessageBus().connect(myProject).subscribe(FileEditorManagerListener.FILE_EDITOR_MANAGER, new FileEditorManagerListener() {
+      @Override
+      public void fileClosed(@NotNull FileEditorManager source, @NotNull VirtualFile file) {
+        closed(file);
+      }
+
+      @Override
+      public void selectionChanged(@NotNull FileEditorManagerEvent event) {
+        VirtualFile file = event.getNewFile();
+        EditorWindow window = EditorWindows.findWindow(FileEditorManagerEx.getInstanceEx(myProject), event);
+        if (file != null && window != null) {
+          selected(file, window);
+        }
+      }
+    });
+  }
+
+  /**
+   * Must be called on the EDT.
+   *
+   * @param window an editor split window of the project.
+   * @param limit  maximum number of files to return.
+   *
+   * @return Not {@code null}. Unmodifiable list of the valid files open in {@code window}, most recently used first.
+   */
+  public synchronized List<VirtualFile> getFiles(@NotNull EditorWindow window, int limit) {
+    if (window.isDisposed()) return Collections.emptyList();
+    MruList<VirtualFile> files = windows.computeIfAbsent(window, w -> new MruList<>());
+    for (VirtualFile file : window.getFiles()) {
+      if (!files.contains(file)) {
+        files.addLast(file);
+      }
+    }
+    return Collections.unmodifiableList(files.toList(limit, VirtualFile::isValid));
+  }
+
+  private synchronized void selected(VirtualFile file, EditorWindow window) {
+    if (!window.isDisposed()) {
+      windows.computeIfAbsent(window, w -> new MruList<>()).touch(file);
+    }
+  }
+
+  private synchronized void closed(VirtualFile file) {
+    for (Iterator<Map.Entry<EditorWindow, MruList<VirtualFile>>> iterator = windows.entrySet().iterator(); iterator.hasNext(); ) {
+      Map.Entry<EditorWindow, MruList<VirtualFile>> entry = iterator.next();
+      EditorWindow window = entry.getKey();
+      if (window == null || window.isDisposed()) {
+        iterator.remove();
+      } else if (!window.isFileOpen(file)) {
+        entry.getValue().remove(file);
+      }
+    }
+  }
+}
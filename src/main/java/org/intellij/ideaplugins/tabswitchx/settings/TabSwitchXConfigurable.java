@@ -0,0 +1,147 @@
+package org.intellij.ideaplugins.tabswitchx.settings;
+
+import javax.swing.JComponent;
+import javax.swing.JPanel;
+
+import org.jetbrains.annotations.Nls;
+import org.jetbrains.annotations.Nullable;
+
+import com.intellij.openapi.application.ApplicationManager;
+import com.intellij.openapi.options.Configurable;
+import com.intellij.ui.JBIntSpinner;
+import com.intellij.ui.components.JBCheckBox;
+import com.intellij.util.ui.FormBuilder;
+
+/**
+ * Settings | Tools | TabSwitchX.
+ */
+public class TabSwitchXConfigurable implements Configurable {
+
+  private JBCheckBox vcsIncludeAllChangeLists;
+  private JBCheckBox toggleWithinSplit;
+  private JBCheckBox prefetchOnModifier;
+  private JBCheckBox showPreview;
+  private JBCheckBox branchTabSets;
+  private JBCheckBox tabBudgetEnabled;
+  private JBIntSpinner tabBudgetMaxTabs;
+  private JBIntSpinner tabBudgetMaxMegabytes;
+  private JBCheckBox searchProjectFiles;
+  private JBCheckBox watchdogEnabled;
+  private JBIntSpinner fetchBudgetMillis;
+  private JBIntSpinner showBudgetMillis;
+  private JBIntSpinner openBudgetMillis;
+
+  @Nls
+  @Override
+  public String getDisplayName() {
+    return "TabSwitchX";
+  }
+
+  @Nullable
+  @Override
+  public JComponent createComponent() {
+    vcsIncludeAllChangeLists = new JBCheckBox("VCS switcher lists changes of all change lists");
+    toggleWithinSplit = new JBCheckBox("Switch between two tabs within the current split window");
+    prefetchOnModifier = new JBCheckBox("Prepare the switcher when the modifier key of the tab actions is pressed");
+    showPreview = new JBCheckBox("Preview the selected file next to the switcher list");
+    branchTabSets = new JBCheckBox("Restore the tabs of a VCS branch when it is checked out");
+    tabBudgetEnabled = new JBCheckBox("Close the least recently used unmodified tabs beyond a budget");
+    tabBudgetMaxTabs = new JBIntSpinner(30, 1, 1000);
+    tabBudgetMaxMegabytes = new JBIntSpinner(0, 0, 100000);
+    searchProjectFiles = new JBCheckBox("Show matching project files after the listed ones when typing to filter");
+    watchdogEnabled = new JBCheckBox("Report slow tab switches to tabswitchx-slow.log in the log directory");
+    fetchBudgetMillis = new JBIntSpinner(50, 1, 10000);
+    showBudgetMillis = new JBIntSpinner(100, 1, 10000);
+    openBudgetMillis = new JBIntSpinner(200, 1, 10000);
+    JPanel panel = FormBuilder.createFormBuilder()
+      .addComponent(vcsIncludeAllChangeLists)
+      .addComponent(toggleWithinSplit)
+      .addComponent(prefetchOnModifier)
+      .addComponent(showPreview)
+      .addComponent(branchTabSets)
+      .addComponent(tabBudgetEnabled)
+      .addLabeledComponent("Maximum tabs:", tabBudgetMaxTabs)
+      .addLabeledComponent("Maximum estimated memory (MB, 0 for none):", tabBudgetMaxMegabytes)
+      .addComponent(searchProjectFiles)
+      .addComponent(watchdogEnabled)
+      .addLabeledComponent("Fetch files budget (ms):", fetchBudgetMillis)
+      .addLabeledComponent("Show popup budget (ms):", showBudgetMillis)
+      .addLabeledComponent("Open file budget (ms):", openBudgetMillis)
+      .addComponentFillVertically(new JPanel(), 0)
+      .getPanel();
+    reset();
+    return panel;
+  }
+
+  @Override
+  public boolean isModified() {
+    TabSwitchXSettings settings = TabSwitchXSettings.getInstance();
+    return vcsIncludeAllChangeLists.isSelected() != settings.vcsIncludeAllChangeLists
+           || toggleWithinSplit.isSelected() != settings.toggleWithinSplit
+           || prefetchOnModifier.isSelected() != settings.prefetchOnModifier
+           || showPreview.isSelected() != settings.showPreview
+           || branchTabSets.isSelected() != settings.branchTabSets
+           || tabBudgetEnabled.isSelected() != settings.tabBudgetEnabled
+           || tabBudgetMaxTabs.getNumber() != settings.tabBudgetMaxTabs
+           || tabBudgetMaxMegabytes.getNumber() != settings.tabBudgetMaxMegabytes
+           || searchProjectFiles.isSelected() != settings.searchProjectFiles
+           || watchdogEnabled.isSelected() != settings.watchdogEnabled
+           || fetchBudgetMillis.getNumber() != settings.fetchBudgetMillis
+           || showBudgetMillis.getNumber() != settings.showBudgetMillis
+           || openBudgetMillis.getNumber() != settings.openBudgetMillis;
+  }
+
+  @Override
+  public void apply() {
+    TabSwitchXSettings settings = TabSwitchXSettings.getInstance();
+    settings.vcsIncludeAllChangeLists = vcsIncludeAllChangeLists.isSelected();
+    settings.toggleWithinSplit = toggleWithinSplit.isSelected();
+    settings.prefetchOnModifier = prefetchOnModifier.isSelected();
+    settings.showPreview = showPreview.isSelected();
+    settings.branchTabSets = branchTabSets.isSelected();
+    settings.tabBudgetEnabled = tabBudgetEnabled.isSelected();
+    settings.tabBudgetMaxTabs = tabBudgetMaxTabs.getNumber();
+    settings.tabBudgetMaxMegabytes = tabBudgetMaxMegabytes.getNumber();
+    settings.searchProjectFiles = searchProjectFiles.isSelected();
+    settings.watchdogEnabled = watchdogEnabled.isSelected();
+    settings.fetchBudgetMillis = fetchBudgetMillis.getNumber();
+    settings.showBudgetMillis = showBudgetMillis.getNumber();
+    settings.openBudgetMillis = openBudgetMillis.getNumber();
+    ApplicationManager.getApplication().getMessageBus().syncPublisher(TabSwitchXSettings.TOPIC).settingsChanged(settings);
+  }
+
+  @Override
+  public void reset() {
+    TabSwitchXSettings settings = TabSwitchXSettings.getInstance();
+    vcsIncludeAllChangeLists.setSelected(settings.vcsIncludeAllChangeLists);
+    toggleWithinSplit.setSelected(settings.toggleWithinSplit);
+    prefetchOnModifier.setSelected(settings.prefetchOnModifier);
+    showPreview.setSelected(settings.showPreview);
+    branchTabSets.setSelected(settings.branchTabSets);
+    tabBudgetEnabled.setSelected(settings.tabBudgetEnabled);
+    tabBudgetMaxTabs.setNumber(settings.tabBudgetMaxTabs);
+    tabBudgetMaxMegabytes.setNumber(settings.tabBudgetMaxMegabytes);
+    searchProjectFiles.setSelected(settings.searchProjectFiles);
+    watchdogEnabled.setSelected(settings.watchdogEnabled);
+    fetchBudgetMillis.setNumber(settings.fetchBudgetMillis);
+    showBudgetMillis.setNumber(settings.showBudgetMillis);
+    openBudgetMillis.setNumber(settings.openBudgetMillis);
+  }
+
+  @Override
+  public void disposeUIResources() {
+    vcsIncludeAllChangeLists = null;
+    toggleWithinSplit = null;
+    prefetchOnModifier = null;
+    showPreview = null;
+    branchTabSets = null;
+    tabBudgetEnabled = null;
+    tabBudgetMaxTabs = null;
+    tabBudgetMaxMegabytes = null;
+    searchProjectFiles = null;
+    watchdogEnabled = null;
+    fetchBudgetMillis = null;
+    showBudgetMillis = null;
+    openBudgetMillis = null;
+  }
+}
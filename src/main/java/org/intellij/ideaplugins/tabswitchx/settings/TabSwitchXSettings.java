@@ -0,0 +1,90 @@
+package org.intellij.ideaplugins.tabswitchx.settings;
+
+import org.jetbrains.annotations.NotNull;
+
+import com.intellij.openapi.application.ApplicationManager;
+import com.intellij.openapi.components.PersistentStateComponent;
+import com.intellij.openapi.components.State;
+import com.intellij.openapi.components.Storage;
+import com.intellij.util.messages.Topic;
+import com.intellij.util.xmlb.XmlSerializerUtil;
+
+/**
+ * Application wide TabSwitchX options, edited in Settings | Tools | TabSwitchX.
+ */
+@State(name = "TabSwitchXSettings", storages = @Storage("tabswitchx.xml"))
+public class TabSwitchXSettings implements PersistentStateComponent<TabSwitchXSettings> {
+
+  /**
+   * Published on the application message bus after the settings were changed in the settings dialog.
+   */
+  public static final Topic<Listener> TOPIC = Topic.create("TabSwitchX settings", Listener.class);
+
+  /**
+   * List changed files of all change lists in the VCS switcher, not only those of the default one.
+   */
+  public boolean vcsIncludeAllChangeLists = false;
+
+  /**
+   * Toggle between the two most recent tabs of the current split window instead of those of the whole project.
+   */
+  public boolean toggleWithinSplit = false;
+
+  /**
+   * Prepare the switcher list while the modifier of the tab switch actions is held down.
+   */
+  public boolean prefetchOnModifier = false;
+
+  /**
+   * Show the first lines of the selected file next to the switcher list.
+   */
+  public boolean showPreview = false;
+
+  /**
+   * Remember the tabs of each VCS branch and bring them back when the branch is checked out again.
+   */
+  public boolean branchTabSets = false;
+
+  /**
+   * Close the least recently used tabs beyond {@link #tabBudgetMaxTabs} tabs, or beyond an estimated footprint of
+   * {@link #tabBudgetMaxMegabytes}, 0 for no ceiling.
+   */
+  public boolean tabBudgetEnabled = false;
+  public int tabBudgetMaxTabs = 30;
+  public int tabBudgetMaxMegabytes = 0;
+
+  /**
+   * Let the typed filter fall through to project files that are not listed, from a name index kept in memory.
+   */
+  public boolean searchProjectFiles = false;
+
+  /**
+   * Report tab switches with a phase over its budget, see {@code SwitchWatchdog}.
+   */
+  public boolean watchdogEnabled = false;
+
+  /**
+   * Time budgets of the phases of a tab switch for the watchdog, in milliseconds.
+   */
+  public int fetchBudgetMillis = 50;
+  public int showBudgetMillis = 100;
+  public int openBudgetMillis = 200;
+
+  public static TabSwitchXSettings getInstance() {
+    return ApplicationManager.getApplication().getService(TabSwitchXSettings.class);
+  }
+
+  @Override
+  public TabSwitchXSettings getState() {
+    return this;
+  }
+
+  @Override
+  public void loadState(@NotNull TabSwitchXSettings state) {
+    XmlSerializerUtil.copyBean(state, this);
+  }
+
+  public interface Listener {
+    void settingsChanged(TabSwitchXSettings settings);
+  }
+}
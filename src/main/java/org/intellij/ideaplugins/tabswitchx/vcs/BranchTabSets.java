@@ -0,0 +1,154 @@
+package org.intellij.ideaplugins.tabswitchx.vcs;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.intellij.ideaplugins.tabswitchx.mru.EditorWindows;
+import org.intellij.ideaplugins.tabswitchx.mru.MruFileIndex;
+import org.intellij.ideaplugins.tabswitchx.settings.TabSwitchXSettings;
+import org.jetbrains.annotations.NotNull;
+
+import com.intellij.openapi.application.ApplicationManager;
+import com.intellij.openapi.application.ModalityState;
+import com.intellij.openapi.components.AbstractProjectComponent;
+import com.intellij.openapi.components.PersistentStateComponent;
+import com.intellij.openapi.components.State;
+import com.intellij.openapi.components.Storage;
+import com.intellij.openapi.components.StoragePathMacros;
+import com.intellij.openapi.fileEditor.FileDocumentManager;
+import com.intellij.openapi.fileEditor.ex.FileEditorManagerEx;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.util.text.StringUtil;
+import com.intellij.openapi.vcs.BranchChangeListener;
+import com.intellij.openapi.vfs.VirtualFile;
+import com.intellij.openapi.vfs.VirtualFileManager;
+
+/**
+ * Remembers the tabs of each VCS branch and brings them back when the branch is checked out again.
+ * <p>
+ * Before a checkout, the tabs in most recently used order are stored under the branch that is being left, as one
+ * newline separated string of file URLs in the workspace file. After the checkout, if the new branch has a stored set,
+ * the tabs not in it are closed, unless they are pinned or have unsaved changes, and only its most recently used file
+ * is opened in an editor. The rest of the set goes in front of the {@link MruFileIndex#addPending pending} files: it
+ * shows in the switcher right away, but an editor is only created for a file when it is switched to.
+ */
+@State(name = "TabSwitchXBranchTabSets", storages = @Storage(StoragePathMacros.WORKSPACE_FILE))
+public class BranchTabSets extends AbstractProjectComponent implements PersistentStateComponent<BranchTabSets.TabSetsState> {
+
+  private static final int MAX_TABS = 50;
+  private static final int MAX_BRANCHES = 30;
+
+  private TabSetsState state = new TabSetsState();
+  private List<String> leavingTabs;
+
+  public BranchTabSets(Project project) {
+    super(project);
+  }
+
+  @Override
+  public void initComponent() {
+    myProject.getMessageBus().connect(myProject).subscribe(BranchChangeListener.VCS_BRANCH_CHANGED, new BranchChangeListener() {
+      @Override
+      public void branchWillChange(@NotNull String branchName) {
+        if (TabSwitchXSettings.getInstance().branchTabSets) {
+          leavingTabs = getTabUrls();
+        }
+      }
+
+      @Override
+      public void branchHasChanged(@NotNull String branchName) {
+        if (TabSwitchXSettings.getInstance().branchTabSets) {
+          branchChanged(branchName);
+        } else {
+          // tracked while off as well, so the tabs are never stored under a branch that was left meanwhile
+          setCurrentBranch(branchName);
+        }
+      }
+    });
+    ApplicationManager.getApplication().getMessageBus().connect(myProject).subscribe(TabSwitchXSettings.TOPIC, settings -> {
+      if (!settings.branchTabSets) {
+        setCurrentBranch(null);
+      }
+    });
+  }
+
+  @Override
+  public TabSetsState getState() {
+    return state;
+  }
+
+  @Override
+  public void loadState(@NotNull TabSetsState state) {
+    this.state = state;
+  }
+
+  private synchronized void setCurrentBranch(String branchName) {
+    leavingTabs = null;
+    state.currentBranch = branchName;
+  }
+
+  private synchronized void branchChanged(String branchName) {
+    if (state.currentBranch != null && leavingTabs != null && !leavingTabs.isEmpty()) {
+      // re-insert, so that the least recently left branch is dropped first
+      state.tabs.remove(state.currentBranch);
+      state.tabs.put(state.currentBranch, StringUtil.join(leavingTabs, "\n"));
+      for (Iterator<String> iterator = state.tabs.keySet().iterator(); state.tabs.size() > MAX_BRANCHES; ) {
+        iterator.next();
+        iterator.remove();
+      }
+    }
+    leavingTabs = null;
+    state.currentBranch = branchName;
+    String urls = state.tabs.get(branchName);
+    if (urls != null) {
+      ApplicationManager.getApplication().invokeLater(() -> restore(StringUtil.split(urls, "\n")), ModalityState.NON_MODAL,
+                                                      myProject.getDisposed());
+    }
+  }
+
+  /**
+   * @return URLs of the open tabs, most recently used first.
+   */
+  private List<String> getTabUrls() {
+    List<String> urls = new ArrayList<>();
+    for (VirtualFile file : MruFileIndex.getInstance(myProject).getFiles(MAX_TABS)) {
+      urls.add(file.getUrl());
+    }
+    return urls;
+  }
+
+  /**
+   * Runs on the EDT, in one go.
+   */
+  private void restore(List<String> urls) {
+    VirtualFileManager fileManager = VirtualFileManager.getInstance();
+    List<VirtualFile> files = new ArrayList<>(urls.size());
+    for (String url : urls) {
+      VirtualFile file = fileManager.findFileByUrl(url);
+      if (file != null && file.isValid() && !file.isDirectory()) {
+        files.add(file);
+      }
+    }
+    if (files.isEmpty()) return;
+    FileEditorManagerEx fileEditorManager = FileEditorManagerEx.getInstanceEx(myProject);
+    Set<VirtualFile> tabSet = new HashSet<>(files);
+    for (VirtualFile file : fileEditorManager.getOpenFiles()) {
+      if (!tabSet.contains(file) && !EditorWindows.isPinned(fileEditorManager, file) && !FileDocumentManager.getInstance().isFileModified(file)) {
+        fileEditorManager.closeFile(file);
+      }
+    }
+    MruFileIndex.getInstance(myProject).addPending(files.subList(1, files.size()));
+    fileEditorManager.openFile(files.get(0), true, true);
+  }
+
+  public static class TabSetsState {
+    public String currentBranch;
+    // branch name to newline separated file URLs, most recently used first
+    public Map<String, String> tabs = new LinkedHashMap<>();
+  }
+}
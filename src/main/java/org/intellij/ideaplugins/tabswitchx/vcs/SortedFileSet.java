@@ -0,0 +1,79 @@
+package org.intellij.ideaplugins.tabswitchx.vcs;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import com.intellij.openapi.vfs.VirtualFile;
+
+/**
+ * Set of files kept sorted by name, ignoring case. {@link #update(Collection)} starts from the order of the previous
+ * update, which is mostly right, so sorting only has to merge in the added files. A member renamed since then is
+ * out of place in that order, and is moved by the same sort.
+ * <p>
+ * Updates are not thread safe, callers synchronize. {@link #toList()} may be called from any thread.
+ */
+public class SortedFileSet {
+
+  static final Comparator<VirtualFile> VIRTUAL_FILE_NAME_COMPARATOR = new Comparator<VirtualFile>() {
+    @Override
+    public int compare(VirtualFile vf1, VirtualFile vf2) {
+      int result = vf1.getName().compareToIgnoreCase(vf2.getName());
+      // files with equal names must not collapse into one entry
+      return result != 0 ? result : vf1.getPath().compareTo(vf2.getPath());
+    }
+  };
+
+  private final Set<VirtualFile> members = new HashSet<>();
+  // read without a lock, e.g. by VcsChangeIndex#getCachedFiles on the EDT
+  private volatile List<VirtualFile> snapshot = Collections.emptyList();
+
+  /**
+   * Makes the set contain exactly {@code files}.
+   *
+   * @return true if the set or the order of its files changed.
+   */
+  public boolean update(Collection<VirtualFile> files) {
+    Set<VirtualFile> current = files instanceof Set ? (Set<VirtualFile>) files : new HashSet<>(files);
+    boolean changed = members.retainAll(current);
+    List<VirtualFile> added = new ArrayList<>();
+    for (VirtualFile file : current) {
+      if (members.add(file)) {
+        added.add(file);
+      }
+    }
+    List<VirtualFile> previous = snapshot;
+    if (!changed && added.isEmpty() && isSorted(previous)) return false;
+    List<VirtualFile> result = new ArrayList<>(members.size());
+    for (VirtualFile file : previous) {
+      if (members.contains(file)) {
+        result.add(file);
+      }
+    }
+    result.addAll(added);
+    result.sort(VIRTUAL_FILE_NAME_COMPARATOR);
+    snapshot = Collections.unmodifiableList(result);
+    return true;
+  }
+
+  /**
+   * @return false if a file was renamed since {@code files} were sorted.
+   */
+  private static boolean isSorted(List<VirtualFile> files) {
+    for (int i = 1; i < files.size(); i++) {
+      if (VIRTUAL_FILE_NAME_COMPARATOR.compare(files.get(i - 1), files.get(i)) > 0) return false;
+    }
+    return true;
+  }
+
+  /**
+   * @return Not {@code null}. Unmodifiable, alphabetically sorted files of the last update.
+   */
+  public List<VirtualFile> toList() {
+    return snapshot;
+  }
+}
@@ -0,0 +1,157 @@
+package org.intellij.ideaplugins.tabswitchx.vcs;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.intellij.ideaplugins.tabswitchx.settings.TabSwitchXSettings;
+import org.jetbrains.annotations.TestOnly;
+import org.jetbrains.concurrency.AsyncPromise;
+import org.jetbrains.concurrency.CancellablePromise;
+
+import com.intellij.openapi.application.ApplicationManager;
+import com.intellij.openapi.components.AbstractProjectComponent;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.vcs.changes.Change;
+import com.intellij.openapi.vcs.changes.ChangeListAdapter;
+import com.intellij.openapi.vcs.changes.ChangeListManager;
+import com.intellij.openapi.vcs.changes.ChangeListManagerEx;
+import com.intellij.openapi.vcs.changes.InvokeAfterUpdateMode;
+import com.intellij.openapi.vcs.changes.LocalChangeList;
+import com.intellij.openapi.vfs.VirtualFile;
+import com.intellij.util.concurrency.AppExecutorUtil;
+
+/**
+ * Alphabetically sorted files changed in the VCS of a project. The set is updated on a background thread whenever the
+ * {@link ChangeListManager} finished an update, so the VCS switcher only reads a ready snapshot.
+ */
+public class VcsChangeIndex extends AbstractProjectComponent {
+
+  private final ExecutorService executor = AppExecutorUtil.createBoundedApplicationPoolExecutor("TabSwitchX VCS Change Index", 1);
+  private final AtomicBoolean updateScheduled = new AtomicBoolean();
+  private final SortedFileSet changedFiles = new SortedFileSet();
+  private volatile boolean initialized;
+
+  public VcsChangeIndex(Project project) {
+    super(project);
+  }
+
+  public static VcsChangeIndex getInstance(Project project) {
+    return project.getComponent(VcsChangeIndex.class);
+  }
+
+  @Override
+  public void initComponent() {
+    ChangeListManager.getInstance(myProject).addChangeListListener(new ChangeListAdapter() {
+      @Override
+      public void changeListUpdateDone() {
+        scheduleUpdate();
+      }
+    }, myProject);
+    ApplicationManager.getApplication().getMessageBus().connect(myProject).subscribe(TabSwitchXSettings.TOPIC, settings -> scheduleUpdate());
+  }
+
+  /**
+   * @param limit maximum number of files to return.
+   *
+   * @return Not {@code null}. Alphabetically sorted list of modified files. Computed on the calling thread only if
+   * the change list manager has not reported an update yet.
+   */
+  public List<VirtualFile> getFiles(int limit) {
+    if (!initialized) {
+      update();
+    }
+    List<VirtualFile> files = changedFiles.toList();
+    return files.size() > limit ? files.subList(0, limit) : files;
+  }
+
+  /**
+   * @param limit maximum number of files to return.
+   *
+   * @return Not {@code null}. Like {@link #getFiles(int)}, but empty instead of computed if the change list manager
+   * has not reported an update yet.
+   */
+  public List<VirtualFile> getCachedFiles(int limit) {
+    List<VirtualFile> files = changedFiles.toList();
+    return files.size() > limit ? files.subList(0, limit) : files;
+  }
+
+  /**
+   * Must not block.
+   *
+   * @return whether the files reflect the last update of the change list manager, and no further update is in
+   * progress or scheduled.
+   */
+  public boolean isUpToDate() {
+    return initialized && !updateScheduled.get() && !ChangeListManagerEx.getInstanceEx(myProject).isInUpdate();
+  }
+
+  /**
+   * @param limit maximum number of files to return.
+   *
+   * @return promise of {@link #getCachedFiles(int)}, resolved on a pooled thread once the change list manager
+   * finished its pending update and the set caught up with it.
+   */
+  public CancellablePromise<List<VirtualFile>> getFilesAfterUpdate(int limit) {
+    AsyncPromise<List<VirtualFile>> promise = new AsyncPromise<>();
+    ChangeListManager.getInstance(myProject).invokeAfterUpdate(() -> executor.execute(() -> {
+      if (!promise.isDone() && !myProject.isDisposed()) {
+        update();
+        promise.setResult(getCachedFiles(limit));
+      }
+    }), InvokeAfterUpdateMode.SILENT_CALLBACK_POOLED, null, null);
+    return promise;
+  }
+
+  /**
+   * Replaces the changed files, as if the change list manager had reported {@code files}.
+   */
+  @TestOnly
+  public synchronized void setFilesForTests(Set<VirtualFile> files) {
+    changedFiles.update(files);
+    initialized = true;
+  }
+
+  private void scheduleUpdate() {
+    if (updateScheduled.compareAndSet(false, true)) {
+      executor.execute(() -> {
+        updateScheduled.set(false);
+        if (!myProject.isDisposed()) {
+          update();
+        }
+      });
+    }
+  }
+
+  private synchronized void update() {
+    Set<VirtualFile> files = new HashSet<>();
+    for (Change change : getChanges()) {
+      VirtualFile virtualFile = change.getVirtualFile();
+      if (possibleToListVirtualFile(virtualFile)) {
+        files.add(virtualFile);
+      }
+    }
+    changedFiles.update(files);
+    initialized = true;
+  }
+
+  /**
+   * @return Not {@code null}. Changes of the default change list, or of all change lists if so configured.
+   */
+  private Collection<Change> getChanges() {
+    ChangeListManager changeListManager = ChangeListManager.getInstance(myProject);
+    if (TabSwitchXSettings.getInstance().vcsIncludeAllChangeLists) {
+      return changeListManager.getAllChanges();
+    }
+    LocalChangeList defaultChangeList = changeListManager.getDefaultChangeList();
+    return defaultChangeList != null ? defaultChangeList.getChanges() : Collections.<Change>emptyList();
+  }
+
+  private boolean possibleToListVirtualFile(VirtualFile virtualFile) {
+    return virtualFile != null && !virtualFile.isDirectory();
+  }
+}
@@ -0,0 +1,145 @@
+package org.intellij.ideaplugins.tabswitchx;
+
+import java.awt.event.InputEvent;
+import java.awt.event.KeyEvent;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import javax.swing.JLabel;
+
+import org.intellij.ideaplugins.tabswitchx.filefetcher.OpenTabFilesFileFetcher;
+import org.intellij.ideaplugins.tabswitchx.vcs.VcsChangeIndex;
+
+import com.intellij.ide.ui.UISettings;
+import com.intellij.openapi.actionSystem.ActionManager;
+import com.intellij.openapi.actionSystem.ActionPlaces;
+import com.intellij.openapi.actionSystem.AnAction;
+import com.intellij.openapi.actionSystem.AnActionEvent;
+import com.intellij.openapi.actionSystem.impl.SimpleDataContext;
+import com.intellij.openapi.fileEditor.FileEditorManager;
+import com.intellij.openapi.fileEditor.ex.FileEditorManagerEx;
+import com.intellij.openapi.vfs.VirtualFile;
+import com.intellij.testFramework.LightVirtualFile;
+import com.intellij.testFramework.fixtures.BasePlatformTestCase;
+
+/**
+ * Replays tab switches through the actions, the {@link TabSwitchProjectComponent} and the fetchers, with thousands of
+ * open tabs and a change list just as large: the action opens the popup, Tab is auto-repeated {@link #BURST} times and
+ * releasing Ctrl opens the selected file.
+ * <p>
+ * The headless test environment does not make the popup visible, everything else runs as in the IDE. The EDT time of
+ * opening the popup must stay within a frame at 60 Hz, and its allocations below {@link #MAX_POPUP_BYTES}. Times and
+ * allocations are medians over {@link #RUNS} switches after {@link #WARM_UP} ones, so a GC pause or a JIT compilation
+ * does not fail the test.
+ */
+public class SwitcherStressTest extends BasePlatformTestCase {
+
+  private static final int TABS = 2000;
+  private static final int WARM_UP = 20;
+  private static final int RUNS = 50;
+  // about one second of auto-repeat at the usual rate
+  private static final int BURST = 30;
+
+  private static final long MAX_POPUP_NANOS = TimeUnit.MILLISECONDS.toNanos(16);
+  private static final long MAX_KEY_PRESS_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+  private static final long MAX_POPUP_BYTES = 4L << 20;
+
+  private final JLabel source = new JLabel();
+  private int editorTabLimit;
+
+  @Override
+  protected void setUp() throws Exception {
+    super.setUp();
+    editorTabLimit = UISettings.getInstance().getEditorTabLimit();
+    UISettings.getInstance().setEditorTabLimit(TABS);
+    List<VirtualFile> files = new ArrayList<>(TABS);
+    FileEditorManager fileEditorManager = FileEditorManager.getInstance(getProject());
+    for (int i = 0; i < TABS; i++) {
+      VirtualFile file = new LightVirtualFile("File" + i + ".txt", "");
+      files.add(file);
+      fileEditorManager.openFile(file, false);
+    }
+    VcsChangeIndex.getInstance(getProject()).setFilesForTests(new HashSet<>(files));
+    assertEquals(TABS, new OpenTabFilesFileFetcher().getFiles(getProject()).size());
+  }
+
+  @Override
+  protected void tearDown() throws Exception {
+    try {
+      FileEditorManagerEx.getInstanceEx(getProject()).closeAllFiles();
+      VcsChangeIndex.getInstance(getProject()).setFilesForTests(Collections.emptySet());
+      UISettings.getInstance().setEditorTabLimit(editorTabLimit);
+    } catch (Throwable e) {
+      addSuppressedException(e);
+    } finally {
+      super.tearDown();
+    }
+  }
+
+  public void testNextTab() {
+    replay("org.intellij.ideaplugins.tabswitchx.action.NextTabAction", InputEvent.CTRL_DOWN_MASK);
+  }
+
+  public void testPrevTab() {
+    replay("org.intellij.ideaplugins.tabswitchx.action.PrevTabAction", InputEvent.CTRL_DOWN_MASK | InputEvent.SHIFT_DOWN_MASK);
+  }
+
+  public void testNextVcsChange() {
+    replay("TabSwitchPlugin.NextVcsChangeAction", InputEvent.CTRL_DOWN_MASK);
+  }
+
+  private void replay(String actionId, int modifiers) {
+    AnAction action = ActionManager.getInstance().getAction(actionId);
+    TabSwitchProjectComponent component = TabSwitchProjectComponent.getHandler(getProject());
+    long[] popupNanos = new long[RUNS];
+    long[] keyPressNanos = new long[RUNS];
+    long[] popupBytes = new long[RUNS];
+    for (int run = -WARM_UP; run < RUNS; run++) {
+      AnActionEvent event = AnActionEvent.createFromInputEvent(keyEvent(KeyEvent.KEY_PRESSED, KeyEvent.VK_TAB, modifiers),
+                                                               ActionPlaces.KEYBOARD_SHORTCUT, action.getTemplatePresentation().clone(),
+                                                               SimpleDataContext.getProjectContext(getProject()));
+      KeyEvent repeat = keyEvent(KeyEvent.KEY_PRESSED, KeyEvent.VK_TAB, modifiers);
+      long allocated = allocatedBytes();
+      long start = System.nanoTime();
+      action.actionPerformed(event);
+      long shown = System.nanoTime();
+      long bytes = allocatedBytes() - allocated;
+      for (int i = 0; i < BURST; i++) {
+        component.dispatchKeyEvent(repeat);
+      }
+      long repeated = System.nanoTime();
+      component.dispatchKeyEvent(keyEvent(KeyEvent.KEY_RELEASED, KeyEvent.VK_CONTROL, 0));
+      if (run >= 0) {
+        popupNanos[run] = shown - start;
+        keyPressNanos[run] = (repeated - shown) / BURST;
+        popupBytes[run] = bytes;
+      }
+    }
+    assertWithin(actionId + ": EDT time per popup (ns)", median(popupNanos), MAX_POPUP_NANOS);
+    assertWithin(actionId + ": EDT time per key press (ns)", median(keyPressNanos), MAX_KEY_PRESS_NANOS);
+    assertWithin(actionId + ": bytes allocated per popup", median(popupBytes), MAX_POPUP_BYTES);
+  }
+
+  private KeyEvent keyEvent(int id, int keyCode, int modifiers) {
+    return new KeyEvent(source, id, System.currentTimeMillis(), modifiers, keyCode, KeyEvent.CHAR_UNDEFINED);
+  }
+
+  private static long allocatedBytes() {
+    return ((com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean()).getThreadAllocatedBytes(Thread.currentThread().getId());
+  }
+
+  private static long median(long[] values) {
+    long[] sorted = values.clone();
+    Arrays.sort(sorted);
+    return sorted[sorted.length / 2];
+  }
+
+  private static void assertWithin(String what, long value, long max) {
+    assertTrue(what + ": " + value + " exceeds " + max, value <= max);
+  }
+}
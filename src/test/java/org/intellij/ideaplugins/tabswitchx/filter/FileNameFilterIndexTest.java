@@ -0,0 +1,64 @@
+package org.intellij.ideaplugins.tabswitchx.filter;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Test;
+
+import com.intellij.openapi.vfs.VirtualFile;
+import com.intellij.testFramework.LightVirtualFile;
+
+import static org.junit.Assert.assertEquals;
+
+public class FileNameFilterIndexTest {
+
+  @Test
+  public void camelHumpStartsALaterWordInsteadOfContinuing() {
+    // "i" continues "File" greedily, after which "n" starts no word; only starting "Index" with "i" matches
+    assertEquals(Arrays.asList("FileIndex.java", "fooinbar.txt"), filter("fin", "fooinbar.txt", "FileIndex.java"));
+  }
+
+  @Test
+  public void camelHumpContinuesWords() {
+    assertEquals(Arrays.asList("FileIndex.java", "fxixlxixnxd.txt"), filter("filind", "fxixlxixnxd.txt", "FileIndex.java"));
+  }
+
+  @Test
+  public void camelHumpOverSeveralWords() {
+    assertEquals(Arrays.asList("FileFetcherIndexFile.java", "fefeinfi.txt"), filter("ffif", "fefeinfi.txt", "FileFetcherIndexFile.java"));
+    assertEquals(Arrays.asList("FileIndexData.java", "fxidxaxt.txt"), filter("fidat", "fxidxaxt.txt", "FileIndexData.java"));
+  }
+
+  @Test
+  public void prefixRanksBeforeCamelHump() {
+    assertEquals(Arrays.asList("finder.txt", "FileIndex.java"), filter("fin", "FileIndex.java", "finder.txt"));
+  }
+
+  @Test
+  public void camelHumpNeedsTheFirstCharacterAtAWordStart() {
+    // only a subsequence, "f" of "afindex" is no word start
+    assertEquals(Arrays.asList("FileIndex.java", "afindex.txt"), filter("fin", "afindex.txt", "FileIndex.java"));
+  }
+
+  @Test
+  public void noMatch() {
+    assertEquals(Collections.emptyList(), filter("xyz", "FileIndex.java", "finder.txt"));
+  }
+
+  private static List<String> filter(String query, String... names) {
+    List<VirtualFile> files = new ArrayList<>();
+    for (String name : names) {
+      files.add(new LightVirtualFile(name));
+    }
+    FileNameFilterIndex index = new FileNameFilterIndex(files);
+    int[] result = new int[index.size()];
+    int count = index.filter(query, result);
+    List<String> matched = new ArrayList<>();
+    for (int i = 0; i < count; i++) {
+      matched.add(files.get(result[i]).getName());
+    }
+    return matched;
+  }
+}
@@ -0,0 +1,81 @@
+package org.intellij.ideaplugins.tabswitchx.frecency;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+public class FrecencyScoresTest {
+
+  private static final long HOUR = 60 * 60 * 1000L;
+
+  private final Set<String> deleted = new HashSet<>();
+  private final FrecencyScores<String> scores = new FrecencyScores<>(element -> !deleted.contains(element));
+
+  @Test
+  public void ranksTheCurrentFirstThenByScoreThenByFirstSeen() {
+    scores.setOpen("a", true, 0);
+    scores.setOpen("b", true, 0);
+    scores.visit("c", 0);
+    scores.visit("c", 0);
+    scores.visit("d", 0);
+    assertEquals(Arrays.asList("d", "c", "a", "b"), scores.rank(10, 0));
+    assertEquals(Arrays.asList("d", "c"), scores.rank(2, 0));
+  }
+
+  @Test
+  public void recentVisitsOutweighOldOnes() {
+    scores.visit("old", 0);
+    scores.visit("old", 0);
+    scores.visit("old", 0);
+    scores.visit("new", 2 * HOUR);
+    scores.visit("current", 2 * HOUR);
+    // three visits four half-lives ago are worth 3/16
+    assertEquals(Arrays.asList("current", "new", "old"), scores.rank(10, 2 * HOUR));
+  }
+
+  @Test
+  public void keepsTheScoreOfRecentlyClosedFiles() {
+    for (int i = 0; i < 10; i++) {
+      scores.visit("file" + i, 0);
+    }
+    scores.visit("file3", 0);
+    for (int i = 0; i < 10; i++) {
+      scores.setOpen("file" + i, false, HOUR);
+    }
+    assertEquals(10, scores.size());
+    scores.setOpen("file0", true, HOUR);
+    scores.setOpen("file3", true, HOUR);
+    assertEquals(Arrays.asList("file3", "file0"), scores.rank(10, HOUR));
+  }
+
+  @Test
+  public void forgetsClosedFilesOnceDecayed() {
+    for (int i = 0; i < 1000; i++) {
+      scores.visit("file" + i, 0);
+    }
+    scores.visit("kept", 0);
+    for (int i = 0; i < 1000; i++) {
+      scores.setOpen("file" + i, false, 10 * HOUR);
+    }
+    // reclaimed each time half the ids were closed, the last closed file waits for the next round
+    assertEquals(2, scores.size());
+    assertEquals(Arrays.asList("kept"), scores.rank(10, 10 * HOUR));
+  }
+
+  @Test
+  public void forgetsDeletedFilesOnceClosed() {
+    for (int i = 0; i < 10; i++) {
+      scores.visit("file" + i, 0);
+      deleted.add("file" + i);
+    }
+    scores.visit("kept", 0);
+    for (int i = 0; i < 10; i++) {
+      scores.setOpen("file" + i, false, 0);
+    }
+    assertEquals(2, scores.size());
+  }
+}
@@ -0,0 +1,82 @@
+package org.intellij.ideaplugins.tabswitchx.mru;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import static org.junit.Assert.assertEquals;
+
+public class MruJournalTest {
+
+  private static long clock;
+
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+
+  @Test
+  public void keepsTheOrderAcrossRestarts() throws Exception {
+    Path file = folder.getRoot().toPath().resolve("test.mru");
+    assertEquals(Collections.emptyList(), record(file, "file:///a", "file:///b", "file:///a"));
+    assertEquals(Arrays.asList("file:///a", "file:///b"), load(file));
+  }
+
+  @Test
+  public void startsOverAfterAnEmptyJournal() throws Exception {
+    assertStartsOver(new byte[0]);
+  }
+
+  @Test
+  public void startsOverAfterATornHeader() throws Exception {
+    assertStartsOver(new byte[] {0x54, 0x53});
+  }
+
+  @Test
+  public void startsOverAfterGarbage() throws Exception {
+    assertStartsOver("not a journal at all".getBytes("UTF-8"));
+  }
+
+  @Test
+  public void keepsTheRecordsBeforeATornTail() throws Exception {
+    Path file = folder.getRoot().toPath().resolve("test.mru");
+    record(file, "file:///a", "file:///b");
+    byte[] bytes = Files.readAllBytes(file);
+    Files.write(file, Arrays.copyOf(bytes, bytes.length - 3));
+    assertEquals(Collections.singletonList("file:///a"), record(file, "file:///c"));
+    assertEquals(Arrays.asList("file:///c", "file:///a"), load(file));
+  }
+
+  private void assertStartsOver(byte[] content) throws Exception {
+    Path file = folder.getRoot().toPath().resolve("test.mru");
+    Files.write(file, content);
+    assertEquals(Collections.emptyList(), record(file, "file:///a", "file:///b"));
+    assertEquals(Arrays.asList("file:///b", "file:///a"), load(file));
+  }
+
+  /**
+   * Loads the journal in {@code file}, touches {@code urls} in order and closes it again.
+   *
+   * @return the URLs loaded before touching.
+   */
+  private static List<String> record(Path file, String... urls) throws Exception {
+    MruJournal journal = new MruJournal(file);
+    List<String> loaded = journal.load();
+    for (String url : urls) {
+      journal.touch(url, ++clock);
+    }
+    journal.close().get();
+    return loaded;
+  }
+
+  private static List<String> load(Path file) throws Exception {
+    MruJournal journal = new MruJournal(file);
+    List<String> loaded = journal.load();
+    journal.close().get();
+    return loaded;
+  }
+}